@@ -0,0 +1,47 @@
+package com.nasor.bookingapi.benchmark;
+
+import com.nasor.bookingapi.model.Booking;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detached booking entities shaped like production data: many bookings sharing fewer rooms and users.
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    static List<Booking> bookings(int bookings, int rooms, int users) {
+        List<Room> roomList = new ArrayList<>(rooms);
+        for (int i = 0; i < rooms; i++) {
+            Room room = new Room();
+            room.setId((long) i + 1);
+            room.setNumber(String.valueOf(100 + i));
+            room.setType(i % 3 == 0 ? RoomType.DELUXE : RoomType.STANDARD);
+            room.setPricePerNight(75.0 + i);
+            roomList.add(room);
+        }
+        List<User> userList = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            userList.add(new User((long) i + 1, "Guest" + i, "Surname" + i, i + " Main St, Anytown",
+                    "guest" + i + "@example.com", "555000" + i, 0L));
+        }
+        List<Booking> result = new ArrayList<>(bookings);
+        LocalDate start = LocalDate.of(2025, 8, 1);
+        for (int i = 0; i < bookings; i++) {
+            Booking booking = new Booking();
+            booking.setId((long) i + 1);
+            booking.setRoom(roomList.get(i % rooms));
+            booking.setUser(userList.get(i % users));
+            booking.setEntryDate(start.plusDays(i / rooms * 3L));
+            booking.setExitDate(start.plusDays(i / rooms * 3L + 2));
+            result.add(booking);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,183 @@
+package com.nasor.bookingapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nasor.bookingapi.BookingApiApplication;
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.dto.page.CursorPage;
+import com.nasor.bookingapi.mapper.BookingJsonWriter;
+import com.nasor.bookingapi.model.Booking;
+import com.nasor.bookingapi.repository.BookingRepository;
+import com.nasor.bookingapi.service.AvailabilityEngine;
+import com.nasor.bookingapi.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Booking hot paths against a local PostgreSQL, configured the same way as the application
+ * (SPRING_DATASOURCE_URL / SPRING_DATASOURCE_USER / SPRING_DATASOURCE_PASSWORD). The trial seeds
+ * {@code rooms}, {@code users} and {@code bookings} rows under a unique prefix and removes them afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookingDatabaseBenchmark {
+    private static final LocalDate SEEDED_FROM = LocalDate.of(2100, 1, 1);
+    // Benchmarked creations use dates after every seeded stay so they never conflict
+    private static final LocalDate CREATED_FROM = LocalDate.of(2300, 1, 1);
+
+    @Param({"1000"})
+    int rooms;
+
+    @Param({"1000"})
+    int users;
+
+    @Param({"100000"})
+    int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private BookingRepository bookingRepository;
+    private AvailabilityEngine availabilityEngine;
+    private JdbcTemplate jdbcTemplate;
+    private BookingJsonWriter bookingJsonWriter;
+    private ObjectMapper objectMapper;
+
+    private final String prefix = "bench-" + UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong createdStays = new AtomicLong();
+    private long[] roomIds;
+    private long[] userIds;
+    // Ids in ascending order; the id sequence allocates in blocks, so seeded ids are not contiguous
+    private long[] bookingIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookingApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+        bookingService = context.getBean(BookingService.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        availabilityEngine = context.getBean(AvailabilityEngine.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        bookingJsonWriter = context.getBean(BookingJsonWriter.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        jdbcTemplate.update("INSERT INTO room (number, room_category, price_per_night) " +
+                "SELECT ? || '-' || g, CASE WHEN g % 3 = 0 THEN 'DELUXE' ELSE 'STANDARD' END, 75 + g % 100 " +
+                "FROM generate_series(1, ?) g", prefix, rooms);
+        jdbcTemplate.update("INSERT INTO app_user (first_name, last_name, address, email, phone_number) " +
+                "SELECT 'Bench', 'User', 'Nowhere 1', ? || '-' || g || '@example.com', '000' " +
+                "FROM generate_series(1, ?) g", prefix, users);
+        jdbcTemplate.update("""
+                INSERT INTO booking (room_id, user_id, entry_date, exit_date)
+                SELECT r.id, u.id, ? + (g / ?) * 3, ? + (g / ?) * 3 + 2
+                FROM generate_series(0, ? - 1) g
+                JOIN room r ON r.number = ? || '-' || (g % ? + 1)
+                JOIN app_user u ON u.email = ? || '-' || (g % ? + 1) || '@example.com'
+                """, SEEDED_FROM, rooms, SEEDED_FROM, rooms, bookings, prefix, rooms, prefix, users);
+
+        roomIds = jdbcTemplate.queryForList("SELECT id FROM room WHERE number LIKE ?", Long.class, prefix + "-%")
+                .stream().mapToLong(Long::longValue).toArray();
+        userIds = jdbcTemplate.queryForList("SELECT id FROM app_user WHERE email LIKE ?", Long.class, prefix + "-%")
+                .stream().mapToLong(Long::longValue).toArray();
+        bookingIds = jdbcTemplate.queryForList("SELECT b.id FROM booking b JOIN room r ON r.id = b.room_id " +
+                        "WHERE r.number LIKE ? ORDER BY b.id", Long.class, prefix + "-%")
+                .stream().mapToLong(Long::longValue).toArray();
+
+        // Rows were inserted behind the application's back
+        availabilityEngine.afterSingletonsInstantiated();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM booking WHERE room_id IN (SELECT id FROM room WHERE number LIKE ?)", prefix + "-%");
+        jdbcTemplate.update("DELETE FROM room WHERE number LIKE ?", prefix + "-%");
+        jdbcTemplate.update("DELETE FROM app_user WHERE email LIKE ?", prefix + "-%");
+        context.close();
+    }
+
+    @Benchmark
+    public BookingDto create() {
+        long stay = createdStays.getAndIncrement();
+        LocalDate entry = CREATED_FROM.plusDays(stay / roomIds.length * 3);
+        return bookingService.create(new BookingRequestRegistration(
+                roomIds[(int) (stay % roomIds.length)], randomUser(), entry, entry.plusDays(2)));
+    }
+
+    @Benchmark
+    public List<Booking> findOverlappingBookings() {
+        LocalDate entry = randomSeededDate();
+        return bookingRepository.findOverlappingBookings(randomRoom(), entry, entry.plusDays(4));
+    }
+
+    @Benchmark
+    public List<Booking> findOverlappingBookingsExcludingCurrent() {
+        LocalDate entry = randomSeededDate();
+        return bookingRepository.findOverlappingBookingsExcludingCurrent(randomRoom(), entry, entry.plusDays(4), randomBooking());
+    }
+
+    @Benchmark
+    public boolean isRoomAvailableFromIndex() {
+        LocalDate entry = randomSeededDate();
+        return availabilityEngine.isRoomAvailable(randomRoom(), entry, entry.plusDays(4));
+    }
+
+    // Loads a page and writes it as GET /api/v1/bookings does
+    @Benchmark
+    public void findAllBookingsPage() throws IOException {
+        // Starts at least a full page before the last seeded booking
+        long after = bookingIds[ThreadLocalRandom.current().nextInt(Math.max(1, bookingIds.length - 100))];
+        CursorPage<Booking> page = bookingService.findAllBookingEntities(after, 100);
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(OutputStream.nullOutputStream(), JsonEncoding.UTF8)) {
+            bookingJsonWriter.writeArray(page.items(), generator);
+        }
+    }
+
+    private long randomRoom() {
+        return roomIds[ThreadLocalRandom.current().nextInt(roomIds.length)];
+    }
+
+    private long randomUser() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    private long randomBooking() {
+        return bookingIds[ThreadLocalRandom.current().nextInt(bookingIds.length)];
+    }
+
+    private LocalDate randomSeededDate() {
+        int stays = Math.max(1, bookings / rooms);
+        return SEEDED_FROM.plusDays(ThreadLocalRandom.current().nextInt(stays) * 3L);
+    }
+}
@@ -0,0 +1,114 @@
+package com.nasor.bookingapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.mapper.BookingDtoMapper;
+import com.nasor.bookingapi.mapper.BookingJsonWriter;
+import com.nasor.bookingapi.mapper.RoomDtoMapper;
+import com.nasor.bookingapi.mapper.UserDtoMapper;
+import com.nasor.bookingapi.model.Booking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cost of turning booking entities into the JSON returned by GET /api/v1/bookings:
+ * BookingDtoMapper.apply and Jackson serialization of the resulting list, against BookingJsonWriter, which
+ * the endpoint now uses. The *ToStream pair writes to a discarding stream, so with -prof gc their
+ * gc.alloc.rate.norm compares the per-response allocations of the two paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookingMappingBenchmark {
+
+    @Param({"100", "1000"})
+    int bookings;
+
+    @Param({"50"})
+    int rooms;
+
+    @Param({"200"})
+    int users;
+
+    private final BookingDtoMapper mapper = new BookingDtoMapper(new UserDtoMapper(), new RoomDtoMapper());
+    // Same date handling as the application's Boot-configured ObjectMapper
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final BookingJsonWriter writer = new BookingJsonWriter(objectMapper);
+    // Unlike OutputStream.nullOutputStream(), keeps accepting writes after Jackson closes it
+    private final OutputStream discard = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private List<Booking> entities;
+    private List<BookingDto> dtos;
+
+    @Setup
+    public void setUp() {
+        entities = BenchmarkData.bookings(bookings, rooms, users);
+        dtos = entities.stream().map(mapper).toList();
+    }
+
+    @Benchmark
+    public BookingDto mapOne() {
+        return mapper.apply(entities.get(0));
+    }
+
+    @Benchmark
+    public List<BookingDto> mapList() {
+        return entities.stream().map(mapper).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entities.stream().map(mapper).toList());
+    }
+
+    @Benchmark
+    public void mapAndSerializeListToStream() throws IOException {
+        objectMapper.writeValue(discard, entities.stream().map(mapper).toList());
+    }
+
+    @Benchmark
+    public void writeListToStream() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(discard, JsonEncoding.UTF8)) {
+            writer.writeArray(entities, generator);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.nasor.bookingapi.benchmark;
+
+import com.nasor.bookingapi.model.RateRule;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.service.RateTable;
+import com.nasor.bookingapi.service.RoomIntervalIndex;
+import com.nasor.bookingapi.service.RoomOccupancyIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cost of the bulk quote behind GET /api/v1/rooms/quotes once the room list has been loaded:
+ * counting booked rooms per night for the occupancy tiers, building the nightly factors per room type and
+ * pricing every room with BigDecimal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QuoteBenchmark {
+
+    @Param({"1000"})
+    int rooms;
+
+    @Param({"14"})
+    int nights;
+
+    private static final LocalDate FROM = LocalDate.of(2025, 8, 1);
+
+    private RateTable table;
+    private final RoomOccupancyIndex occupancy = new RoomOccupancyIndex();
+    private long[] roomIds;
+    private RoomType[] types;
+    private BigDecimal[] prices;
+
+    @Setup
+    public void setUp() {
+        table = RateTable.of(List.of(
+                rule(null, FROM.minusDays(30), FROM.plusDays(60), null, null, "1.25"),
+                rule(RoomType.DELUXE, null, null, (short) (16 | 32), null, "1.10"),
+                rule(null, null, null, null, "0.8", "1.15"),
+                rule(null, null, null, null, "0.95", "1.35")),
+                FROM.minusDays(1), 730);
+
+        roomIds = new long[rooms];
+        types = new RoomType[rooms];
+        prices = new BigDecimal[rooms];
+        int fromDay = RoomIntervalIndex.toDay(FROM);
+        for (int i = 0; i < rooms; i++) {
+            roomIds[i] = i + 1;
+            types[i] = i % 3 == 0 ? RoomType.DELUXE : RoomType.STANDARD;
+            prices[i] = BigDecimal.valueOf(75.0 + i % 50);
+            // Roughly 85% of the rooms booked on any night
+            for (int day = fromDay - 7 + i % 7; day < fromDay + nights; day += 7) {
+                if (i % 7 != 0) {
+                    occupancy.occupy(roomIds[i], day, day + 6);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<RateTable.Quote> quoteAllRooms() {
+        int fromDay = RoomIntervalIndex.toDay(FROM);
+        RoomType[] roomTypes = RoomType.values();
+        BigDecimal[][] factors = new BigDecimal[roomTypes.length][];
+        for (RoomType type : roomTypes) {
+            int[] occupied = new int[nights];
+            int total = 0;
+            for (int i = 0; i < rooms; i++) {
+                if (types[i] == type) {
+                    total++;
+                    for (int n = 0; n < nights; n++) {
+                        if (occupancy.isOccupied(roomIds[i], fromDay + n)) {
+                            occupied[n]++;
+                        }
+                    }
+                }
+            }
+            factors[type.ordinal()] = table.nightFactors(type, fromDay, nights, occupied, total);
+        }
+
+        List<RateTable.Quote> quotes = new ArrayList<>(rooms);
+        for (int i = 0; i < rooms; i++) {
+            quotes.add(RateTable.quote(prices[i], factors[types[i].ordinal()]));
+        }
+        return quotes;
+    }
+
+    private static RateRule rule(RoomType type, LocalDate start, LocalDate end, Short daysOfWeek,
+                                 String minOccupancy, String multiplier) {
+        RateRule rule = new RateRule();
+        rule.setName("benchmark");
+        rule.setType(type);
+        rule.setStartDate(start);
+        rule.setEndDate(end);
+        rule.setDaysOfWeek(daysOfWeek);
+        rule.setMinOccupancy(minOccupancy == null ? null : new BigDecimal(minOccupancy));
+        rule.setMultiplier(new BigDecimal(multiplier));
+        return rule;
+    }
+}
@@ -0,0 +1,76 @@
+package com.nasor.bookingapi.benchmark;
+
+import com.nasor.bookingapi.service.RoomWriteLocks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput of booking writes queued on RoomWriteLocks, with the transaction stood in for by some CPU work
+ * and a park for the database round trips. With rooms=distinct every thread writes its own room and
+ * throughput should grow with -t (up to the core count for CPU-bound work); with rooms=same all threads
+ * write one room and throughput stays that of a single writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RoomWriteLockBenchmark {
+    private static final AtomicLong NEXT_ROOM = new AtomicLong();
+
+    @Param({"same", "distinct"})
+    String rooms;
+
+    @Param({"200"})
+    int cpuTokens;
+
+    @Param({"100"})
+    int databaseMicros;
+
+    private final RoomWriteLocks locks = new RoomWriteLocks(new SimpleMeterRegistry(), 1024, Duration.ofMinutes(1));
+
+    @State(Scope.Thread)
+    public static class Writer {
+        long roomId;
+
+        @Setup
+        public void setUp(RoomWriteLockBenchmark benchmark) {
+            roomId = "same".equals(benchmark.rooms) ? 0 : NEXT_ROOM.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    public Object write(Writer writer) {
+        return locks.withRoomLock(writer.roomId, this::transaction);
+    }
+
+    @Benchmark
+    public Object writeUnlocked() {
+        return transaction();
+    }
+
+    private Object transaction() {
+        Blackhole.consumeCPU(cpuTokens);
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(databaseMicros));
+        return null;
+    }
+}
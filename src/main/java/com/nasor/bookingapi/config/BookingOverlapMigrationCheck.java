@@ -0,0 +1,80 @@
+package com.nasor.bookingapi.config;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs before V2__booking_no_overlap.sql on databases that predate it. If existing bookings already overlap,
+ * adding the exclusion constraint would fail on the first conflicting row only; this stops the migration
+ * listing the overlapping pairs instead, so they can be resolved by hand (see "Upgrading a database with
+ * overlapping bookings" in the README) before the application is started again. Implemented as a callback
+ * rather than in the script so the checksum of an already applied V2 does not change.
+ */
+@Component
+public class BookingOverlapMigrationCheck implements Callback {
+    static final MigrationVersion NO_OVERLAP_VERSION = MigrationVersion.fromVersion("2");
+    private static final int MAX_REPORTED = 20;
+
+    // Closed ranges, as booking_no_overlap compares them
+    private static final String OVERLAPS = """
+            SELECT a.room_id, a.id, a.entry_date, a.exit_date, b.id, b.entry_date, b.exit_date
+            FROM booking a
+            JOIN booking b ON b.room_id = a.room_id AND b.id > a.id
+                AND a.entry_date <= b.exit_date AND a.exit_date >= b.entry_date
+            ORDER BY a.room_id, a.id, b.id
+            LIMIT ?
+            """;
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        MigrationInfo migration = context.getMigrationInfo();
+        return event == Event.BEFORE_EACH_MIGRATE && migration != null
+                && NO_OVERLAP_VERSION.equals(migration.getVersion());
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        List<String> overlaps = new ArrayList<>();
+        try (PreparedStatement statement = context.getConnection().prepareStatement(OVERLAPS)) {
+            statement.setInt(1, MAX_REPORTED + 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    overlaps.add("room " + rs.getLong(1)
+                            + ": booking " + rs.getLong(2) + " [" + rs.getDate(3) + ", " + rs.getDate(4) + "]"
+                            + " overlaps booking " + rs.getLong(5) + " [" + rs.getDate(6) + ", " + rs.getDate(7) + "]");
+                }
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Could not check existing bookings for overlaps", e);
+        }
+        if (overlaps.isEmpty()) {
+            return;
+        }
+
+        String more = overlaps.size() > MAX_REPORTED ? "\n  ... and more" : "";
+        throw new FlywayException("Cannot add booking_no_overlap: existing bookings overlap. Move or delete one "
+                + "booking of each pair, then restart:\n  "
+                + String.join("\n  ", overlaps.subList(0, Math.min(MAX_REPORTED, overlaps.size()))) + more);
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "bookingOverlapCheck";
+    }
+}
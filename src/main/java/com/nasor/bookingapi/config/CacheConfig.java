@@ -0,0 +1,16 @@
+package com.nasor.bookingapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches are configured through spring.cache.* in application.properties. The caching advice runs
+ * outside the transactional advice so evictions happen only once the update has committed.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+    public static final String ROOMS = "rooms";
+    public static final String USERS = "users";
+}
@@ -0,0 +1,35 @@
+package com.nasor.bookingapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nasor.bookingapi.event.BookingChangeSink;
+import com.nasor.bookingapi.event.FileBookingChangeSink;
+import com.nasor.bookingapi.event.LoggingBookingChangeSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Sink of the booking outbox relay: booking.outbox.sink=log (the default) or file. A BookingChangeSink bean
+ * defined elsewhere takes precedence over both.
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(BookingChangeSink.class)
+    @ConditionalOnProperty(name = "booking.outbox.sink", havingValue = "file")
+    public BookingChangeSink fileBookingChangeSink(@Value("${booking.outbox.file:booking-changes.ndjson}") Path file,
+                                                   ObjectMapper objectMapper) {
+        return new FileBookingChangeSink(file, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(BookingChangeSink.class)
+    public BookingChangeSink loggingBookingChangeSink() {
+        return new LoggingBookingChangeSink();
+    }
+}
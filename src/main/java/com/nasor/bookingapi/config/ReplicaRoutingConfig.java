@@ -0,0 +1,93 @@
+package com.nasor.bookingapi.config;
+
+import com.nasor.bookingapi.controller.ClientIds;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, enabled by listing their JDBC urls in booking.replicas.urls. Replaces the auto-configured
+ * DataSource with a {@link ReplicaRoutingDataSource} over the primary pool (still configured through
+ * spring.datasource.*) and one smaller read-only pool per replica, using the primary's credentials.
+ */
+@Configuration
+@ConditionalOnProperty(name = "booking.replicas.urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             MeterRegistry meterRegistry,
+                                                             @Value("${booking.replicas.urls}") List<String> urls,
+                                                             @Value("${booking.replicas.pool-size:5}") int poolSize,
+                                                             @Value("${booking.replicas.max-lag:PT5S}") Duration maxLag,
+                                                             @Value("${booking.replicas.check-interval:PT1S}") Duration checkInterval,
+                                                             @Value(ClientIds.HEADER_PROPERTY) String clientHeader) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(urls.get(i)).build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // Fail fast into the primary fallback instead of holding the request for the default 30s
+            replica.setConnectionTimeout(Duration.ofSeconds(2).toMillis());
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, checkInterval,
+                ReplicaRoutingDataSource.postgresProbe(), () -> currentClient(clientHeader));
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = i;
+            Gauge.builder("booking.replicas.lag", routing, r -> r.replicaLagSeconds(index))
+                    .description("Replay lag of the replica in seconds, -1 while it receives no reads")
+                    .tag("replica", "replica-" + i)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+        routing.startChecks();
+        return routing;
+    }
+
+    // The lazy proxy defers choosing a pool until the first statement, when the transaction's read-only flag is set
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    private static String currentClient(String clientHeader) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            return ClientIds.of(request, clientHeader);
+        }
+        return null;
+    }
+}
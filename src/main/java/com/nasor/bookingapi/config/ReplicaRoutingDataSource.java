@@ -0,0 +1,273 @@
+package com.nasor.bookingapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary. Must sit behind a
+ * LazyConnectionDataSourceProxy, so the connection is chosen once the transaction's read-only flag is known.
+ * <p>
+ * A background check measures each replica's replay lag and the WAL position it has replayed up to; a replica
+ * that fails the check or lags by more than {@code maxLag} gets no reads until it recovers, and with no usable
+ * replica reads fall back to the primary.
+ * <p>
+ * After a client's write commits, its next read looks up the primary's current WAL position, which is at or past
+ * the commit, and from then on the client only reads from replicas whose last checked replay position has passed
+ * it. Reads shortly after a write therefore go to the primary until the next check sees a replica catch up.
+ * Reads made through {@link #readFromPrimary} always go to the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    static final String PRIMARY = "primary";
+    // Write committed, primary position not looked up yet
+    private static final long UNRESOLVED = -1;
+
+    // Lag is zero when the replica has replayed everything it received, so an idle primary does not read as lag
+    private static final String REPLICA_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE extract(epoch FROM now() - pg_last_xact_replay_timestamp()) END, " +
+            "pg_wal_lsn_diff(COALESCE(pg_last_wal_replay_lsn(), pg_current_wal_lsn()), '0/0')";
+    private static final String PRIMARY_QUERY = "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')";
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    /**
+     * WAL positions of the primary and replicas, as byte offsets that can be compared.
+     */
+    public interface ReplicationProbe {
+        ReplicaState replicaState(DataSource replica) throws SQLException;
+
+        long primaryPosition(DataSource primary) throws SQLException;
+    }
+
+    public record ReplicaState(Duration lag, long replayedPosition) {
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagNanos;
+    private final Duration checkInterval;
+    private final ReplicationProbe probe;
+    private final Supplier<String> currentClient;
+    private final Cache<String, Long> writePositionByClient;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private ScheduledExecutorService checker;
+
+    /**
+     * @param currentClient id of the client of the current request, or null outside a request
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, Duration maxLag,
+                                    Duration checkInterval, ReplicationProbe probe, Supplier<String> currentClient) {
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicas.size()).mapToObj(i -> new Replica(i, replicas.get(i))).toList();
+        this.maxLagNanos = maxLag.toNanos();
+        this.checkInterval = checkInterval;
+        this.probe = probe;
+        this.currentClient = currentClient;
+        // By then every replica still receiving reads was measured less than maxLag behind after the write
+        this.writePositionByClient = Caffeine.newBuilder().expireAfterWrite(maxLag.plus(checkInterval)).build();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.replicas.forEach(replica -> targets.put(replica, replica.dataSource));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public static ReplicationProbe postgresProbe() {
+        return new ReplicationProbe() {
+            @Override
+            public ReplicaState replicaState(DataSource replica) throws SQLException {
+                try (Connection connection = replica.getConnection();
+                     Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(REPLICA_QUERY)) {
+                    rs.next();
+                    return new ReplicaState(Duration.ofNanos((long) (rs.getDouble(1) * 1_000_000_000L)), rs.getLong(2));
+                }
+            }
+
+            @Override
+            public long primaryPosition(DataSource primary) throws SQLException {
+                try (Connection connection = primary.getConnection();
+                     Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(PRIMARY_QUERY)) {
+                    rs.next();
+                    return rs.getLong(1);
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs {@code read} with its read-only connections taken from the primary, for reads kept beyond the request,
+     * such as cache loads, which must not pick up a replica's older rows. A transaction that already holds a
+     * connection keeps it.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        if (PRIMARY_READS.get() != null) {
+            return read.get();
+        }
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_READS.remove();
+        }
+    }
+
+    public void startChecks() {
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                ReplicaState state = probe.replicaState(replica.dataSource);
+                replica.lagNanos = state.lag().toNanos();
+                replica.replayedPosition = state.replayedPosition();
+                replica.usable = replica.lagNanos <= maxLagNanos;
+            } catch (SQLException | RuntimeException e) {
+                if (replica.usable) {
+                    log.warn("Replica {} failed its lag check, reading from the primary instead", replica.index, e);
+                }
+                replica.usable = false;
+            }
+        }
+    }
+
+    public int replicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Last measured lag of a replica, or -1 while it is not receiving reads.
+     */
+    public double replicaLagSeconds(int index) {
+        Replica replica = replicas.get(index);
+        return replica.usable ? replica.lagNanos / 1e9 : -1;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String client = currentClient.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWrite(client);
+            return PRIMARY;
+        }
+        if (PRIMARY_READS.get() != null) {
+            return PRIMARY;
+        }
+
+        long writePosition = client == null ? 0 : writePosition(client);
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.usable && replica.replayedPosition >= writePosition) {
+                return replica;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            if (target == primary) {
+                throw e;
+            }
+            replicas.stream().filter(replica -> replica.dataSource == target).forEach(replica -> replica.usable = false);
+            log.warn("Replica connection failed, reading from the primary until the next lag check", e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // Only marks the write: looking up the primary position here would need a second connection from the pool
+    private void recordWrite(String client) {
+        if (client == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    writePositionByClient.put(client, UNRESOLVED);
+                }
+            });
+        } else {
+            writePositionByClient.put(client, UNRESOLVED);
+        }
+    }
+
+    // Primary position at or past the client's last commit, 0 when it has not written lately
+    private long writePosition(String client) {
+        Long position = writePositionByClient.getIfPresent(client);
+        if (position == null) {
+            return 0;
+        }
+        if (position != UNRESOLVED) {
+            return position;
+        }
+        try {
+            long resolved = probe.primaryPosition(primary);
+            writePositionByClient.asMap().replace(client, UNRESOLVED, resolved);
+            return resolved;
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Looking up the primary WAL position failed, reading from the primary", e);
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static final class Replica {
+        final int index;
+        final DataSource dataSource;
+        volatile boolean usable;
+        volatile long lagNanos;
+        volatile long replayedPosition;
+
+        Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.nasor.bookingapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Refuses to start the virtual-threads profile on a runtime where it would not help, and checks that the
+ * JDBC path does not pin carrier threads: pgjdbc before 42.6 and HikariCP before 5.1 guard their hot paths
+ * with {@code synchronized}, which blocks the carrier thread for the whole database round trip.
+ */
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadsConfig implements InitializingBean {
+    private static final int MIN_JAVA_VERSION = 21;
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        int javaVersion = Runtime.version().feature();
+        if (javaVersion < MIN_JAVA_VERSION) {
+            throw new IllegalStateException("The virtual-threads profile needs Java " + MIN_JAVA_VERSION
+                    + " or newer, running on Java " + javaVersion);
+        }
+
+        Driver driver = DriverManager.getDriver("jdbc:postgresql:");
+        if (driver.getMajorVersion() < 42 || (driver.getMajorVersion() == 42 && driver.getMinorVersion() < 6)) {
+            throw new IllegalStateException("PostgreSQL JDBC driver " + driver.getMajorVersion() + "."
+                    + driver.getMinorVersion() + " pins virtual threads; 42.6 or newer is required");
+        }
+
+        String hikariVersion = HikariDataSource.class.getPackage().getImplementationVersion();
+        if (hikariVersion != null && compareVersions(hikariVersion, "5.1") < 0) {
+            throw new IllegalStateException("HikariCP " + hikariVersion + " pins virtual threads; 5.1 or newer is required");
+        }
+
+        if (System.getProperty("jdk.tracePinnedThreads") == null) {
+            log.info("Virtual threads enabled; start the JVM with -Djdk.tracePinnedThreads=short to log any remaining pinning");
+        }
+    }
+
+    private static int compareVersions(String version, String minimum) {
+        String[] actual = version.split("[.-]");
+        String[] expected = minimum.split("\\.");
+        for (int i = 0; i < expected.length; i++) {
+            int a = i < actual.length && actual[i].matches("\\d+") ? Integer.parseInt(actual[i]) : 0;
+            int e = Integer.parseInt(expected[i]);
+            if (a != e) {
+                return Integer.compare(a, e);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.nasor.bookingapi.config;
+
+import com.nasor.bookingapi.controller.BookingWriteLimitInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Booking and hold writes go through rate and concurrency limits (see BookingWriteLimitInterceptor);
+ * booking.limits.enabled=false turns them off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "booking.limits.enabled", havingValue = "true", matchIfMissing = true)
+public class WebConfig implements WebMvcConfigurer {
+    private final BookingWriteLimitInterceptor bookingWriteLimitInterceptor;
+
+    public WebConfig(BookingWriteLimitInterceptor bookingWriteLimitInterceptor) {
+        this.bookingWriteLimitInterceptor = bookingWriteLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(bookingWriteLimitInterceptor)
+                .addPathPatterns("/api/v1/bookings", "/api/v1/bookings/**", "/api/v1/holds", "/api/v1/holds/**");
+    }
+}
@@ -1,10 +1,25 @@
 package com.nasor.bookingapi.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nasor.bookingapi.dto.booking.BookingBatchRequest;
+import com.nasor.bookingapi.dto.booking.BookingBatchResult;
+import com.nasor.bookingapi.dto.booking.BookingChangeDto;
 import com.nasor.bookingapi.dto.booking.BookingDto;
 import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
 import com.nasor.bookingapi.dto.booking.BookingRequestUpdating;
+import com.nasor.bookingapi.dto.page.CursorPage;
+import com.nasor.bookingapi.mapper.BookingList;
+import com.nasor.bookingapi.repository.projection.BookingVersions;
+import com.nasor.bookingapi.service.BookingBatchService;
+import com.nasor.bookingapi.service.BookingOutbox;
 import com.nasor.bookingapi.service.BookingService;
+import com.nasor.bookingapi.service.CollectionVersions;
+import com.nasor.bookingapi.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,39 +27,190 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/bookings")
 @Tag(name = "Bookings", description = "Booking Management")
 public class BookingController {
+    private static final String NDJSON_FORMAT = "ndjson";
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_CHANGES_WAIT_SECONDS = 60;
+
     private final BookingService bookingService;
+    private final BookingBatchService bookingBatchService;
+    private final ObjectMapper objectMapper;
+    private final CollectionVersions collectionVersions;
+    private final IdempotencyService idempotencyService;
+    private final BookingOutbox bookingOutbox;
+    private final String clientHeader;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingBatchService bookingBatchService, ObjectMapper objectMapper,
+                             CollectionVersions collectionVersions, IdempotencyService idempotencyService,
+                             BookingOutbox bookingOutbox, @Value(ClientIds.HEADER_PROPERTY) String clientHeader) {
         this.bookingService = bookingService;
+        this.bookingBatchService = bookingBatchService;
+        this.objectMapper = objectMapper;
+        this.collectionVersions = collectionVersions;
+        this.idempotencyService = idempotencyService;
+        this.bookingOutbox = bookingOutbox;
+        this.clientHeader = clientHeader;
     }
 
     @Operation(summary = "Get All Existing Bookings",
-            description = "Retrieves a list of all current bookings in the system.",
+            description = "Retrieves bookings in id order, one page at a time. Follow the next cursor to walk all bookings.",
             operationId = "getAllBookings"
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of bookings",
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of bookings",
+                    headers = {
+                            @Header(name = CursorPages.NEXT_CURSOR_HEADER,
+                                    description = "Value to pass as 'after' for the next page; absent on the last page",
+                                    schema = @Schema(type = "integer", format = "int64")),
+                            @Header(name = "Link",
+                                    description = "URI of the next page with rel=\"next\"; absent on the last page",
+                                    schema = @Schema(type = "string"))
+                    },
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = BookingDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping
-    public ResponseEntity<List<BookingDto>> getAllBookings() {
-        return ResponseEntity.ok(bookingService.findAllBookings());
+    public ResponseEntity<BookingList> getAllBookings(
+            @Parameter(description = "Only return bookings with an id greater than this cursor")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of bookings to return")
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) @Min(1) @Max(CursorPage.MAX_LIMIT) int limit,
+            WebRequest request) {
+        return collectionVersions.read(CollectionVersions.Name.BOOKINGS, token -> {
+            if (request.checkNotModified(ETags.ofCollection(token))) {
+                return null;
+            }
+            return CursorPages.ok(bookingService.findAllBookingEntities(after, limit), BookingList::new);
+        });
+    }
+
+    @Operation(summary = "Export Bookings",
+            description = "Streams every booking whose stay touches the given dates as newline-delimited JSON, one BookingDto per line, in id order.",
+            operationId = "exportBookings")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = BookingDto.class))),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format or invalid dates",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @Parameter(description = "Export format; only ndjson is supported", example = NDJSON_FORMAT)
+            @RequestParam(defaultValue = NDJSON_FORMAT) String format,
+            @Parameter(description = "Only bookings ending on or after this date", example = "2025-08-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Only bookings starting on or before this date", example = "2025-08-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!NDJSON_FORMAT.equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Unsupported export format " + format);
+        }
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid dates");
+        }
+
+        ObjectWriter writer = objectMapper.writerFor(BookingDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                long[] written = {0};
+                bookingService.exportBookings(from, to, booking -> {
+                    try {
+                        writer.writeValue(generator, booking);
+                        generator.writeRaw('\n');
+                        if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Get Booking Changes",
+            description = "Returns booking creations, updates and deletions numbered after 'since', oldest first. " +
+                    "When there are none yet, waits up to 'wait' seconds for one before answering with an empty list. " +
+                    "Start from 0 and pass the X-Next-Cursor of each response as the next 'since'.",
+            operationId = "getBookingChanges")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes after 'since', possibly none",
+                    headers = @Header(name = CursorPages.NEXT_CURSOR_HEADER,
+                            description = "Value to pass as 'since' on the next call",
+                            schema = @Schema(type = "integer", format = "int64")),
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = BookingChangeDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, limit or wait",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/changes")
+    public DeferredResult<ResponseEntity<List<BookingChangeDto>>> getBookingChanges(
+            @Parameter(description = "Last sequence already seen; 0 for the oldest retained change")
+            @RequestParam(defaultValue = "0") @Min(0) long since,
+            @Parameter(description = "Maximum number of changes to return")
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) @Min(1) @Max(CursorPage.MAX_LIMIT) int limit,
+            @Parameter(description = "Seconds to wait for a change when there is none yet")
+            @RequestParam(defaultValue = "30") @Min(0) @Max(MAX_CHANGES_WAIT_SECONDS) int wait) {
+        // The outbox answers by itself once 'wait' is over; the extra time only guards against a stuck query
+        DeferredResult<ResponseEntity<List<BookingChangeDto>>> result =
+                new DeferredResult<>(Duration.ofSeconds(wait + 10L).toMillis());
+        bookingOutbox.awaitChanges(since, limit, Duration.ofSeconds(wait)).whenComplete((changes, error) -> {
+            if (error != null) {
+                result.setErrorResult(error);
+                return;
+            }
+            long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).sequence();
+            result.setResult(ResponseEntity.ok()
+                    .header(CursorPages.NEXT_CURSOR_HEADER, Long.toString(next))
+                    .body(changes));
+        });
+        return result;
     }
 
     @Operation(summary = "Get Booking by ID",
@@ -54,26 +220,36 @@ public class BookingController {
             @ApiResponse(responseCode = "200", description = "Booking found successfully",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = BookingDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Booking not found with the specified ID",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<BookingDto> getBookingById(@PathVariable Long id) {
+    public ResponseEntity<BookingDto> getBookingById(@PathVariable Long id, WebRequest request) {
+        Optional<BookingVersions> versions = bookingService.findBookingVersions(id);
+        if (versions.isPresent() && request.checkNotModified(ETags.of(versions.get()))) {
+            return null;
+        }
         return ResponseEntity.ok(bookingService.findBookingById(id));
     }
 
     @Operation(summary = "Create a new Booking",
-            description = "Registers a new booking for a room for specified dates and user.",
+            description = "Registers a new booking for a room for specified dates and user. " +
+                    "With an Idempotency-Key, retries of the same request return the original booking instead of creating another.",
             operationId = "createBooking")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Booking created successfully",
-                    headers = @Header(
-                            name = "Location",
-                            description = "URI of the newly created booking resource",
-                            schema = @Schema(type = "string", format = "uri", example = "http://localhost:8080/api/v1/bookings/1")
-                    ),
+                    headers = {
+                            @Header(name = "Location",
+                                    description = "URI of the newly created booking resource",
+                                    schema = @Schema(type = "string", format = "uri", example = "http://localhost:8080/api/v1/bookings/1")),
+                            @Header(name = IDEMPOTENT_REPLAYED_HEADER,
+                                    description = "Present and true when the response is a replay of an earlier request with the same Idempotency-Key",
+                                    schema = @Schema(type = "boolean"))
+                    },
 
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = BookingDto.class))),
@@ -81,8 +257,14 @@ public class BookingController {
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "Room or User not found with the provided IDs",
                     content = @Content),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different booking request",
+                    content = @Content),
             @ApiResponse(responseCode = "409", description = "Booking dates overlap with an existing reservation",
                     content = @Content),
+            @ApiResponse(responseCode = "429", description = "Too many requests from this client; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many writes in progress; retry after the Retry-After delay",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
@@ -95,8 +277,20 @@ public class BookingController {
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = BookingRequestRegistration.class))
             )
-            @RequestBody BookingRequestRegistration requestRegistration) {
-        BookingDto booking = bookingService.create(requestRegistration);
+            @RequestBody BookingRequestRegistration requestRegistration,
+            @Parameter(description = "Client-chosen unique key; retries with the same key return the first response instead of booking again")
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest request) {
+        BookingDto booking;
+        boolean replayed = false;
+        if (idempotencyKey == null) {
+            booking = bookingService.create(requestRegistration);
+        } else {
+            IdempotencyService.Result result = idempotencyService.create(
+                    ClientIds.of(request, clientHeader), idempotencyKey, requestRegistration);
+            booking = result.booking();
+            replayed = result.replayed();
+        }
 
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
@@ -104,7 +298,52 @@ public class BookingController {
                 .buildAndExpand(booking.id())
                 .toUri();
 
-        return ResponseEntity.created(location).body(booking);
+        ResponseEntity.BodyBuilder response = ResponseEntity.created(location);
+        if (replayed) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return response.body(booking);
+    }
+
+    @Operation(summary = "Create Bookings in Batch",
+            description = "Registers up to 500 bookings in one transaction and reports the outcome of each one. " +
+                    "In ALL_OR_NOTHING mode a single failing booking rejects the batch; in BEST_EFFORT mode the valid bookings are created.",
+            operationId = "createBookingsBatch")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Every booking in the batch was created",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookingBatchResult.class))),
+            @ApiResponse(responseCode = "207", description = "Some bookings were created (BEST_EFFORT only); see each item",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookingBatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid batch request",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "No booking was created; see each item, or a concurrent booking took the same dates",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookingBatchResult.class))),
+            @ApiResponse(responseCode = "429", description = "Too many requests from this client; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many writes in progress; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<BookingBatchResult> createBookingsBatch(
+            @Valid
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Bookings to create and the batch mode",
+                    required = true,
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookingBatchRequest.class))
+            )
+            @RequestBody BookingBatchRequest batchRequest) {
+        BookingBatchResult result = bookingBatchService.create(batchRequest);
+
+        HttpStatus status = result.failed() == 0 ? HttpStatus.CREATED
+                : result.created() > 0 ? HttpStatus.MULTI_STATUS
+                : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(result);
     }
 
     @Operation(summary = "Update an existing Booking",
@@ -118,13 +357,21 @@ public class BookingController {
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid update details or dates provided",
                     content = @Content),
-            @ApiResponse(responseCode = "409", description = "Updated booking dates overlap with an existing reservation",
+            @ApiResponse(responseCode = "409", description = "Updated booking dates overlap with an existing reservation, or the booking was modified concurrently",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Too many requests from this client; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many writes in progress; retry after the Retry-After delay",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<BookingDto> updateBookingById(@PathVariable Long id,
+                                                    @Parameter(description = "ETag from a previous GET; the update is rejected with 412 if the booking changed since")
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                     @Valid
                                                     @io.swagger.v3.oas.annotations.parameters.RequestBody(
                                                             description = "Updated booking details",
@@ -133,7 +380,7 @@ public class BookingController {
                                                                     schema = @Schema(implementation = BookingRequestUpdating.class))
                                                     )
                                                     @RequestBody BookingRequestUpdating  requestUpdating) {
-        return ResponseEntity.ok(bookingService.update(id, requestUpdating));
+        return ResponseEntity.ok(bookingService.update(id, requestUpdating, ETags.expectedVersion(ifMatch)));
     }
 
     @Operation(summary = "Delete Booking by ID",
@@ -144,6 +391,10 @@ public class BookingController {
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "Booking not found with the specified ID",
                     content = @Content),
+            @ApiResponse(responseCode = "429", description = "Too many requests from this client; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many writes in progress; retry after the Retry-After delay",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
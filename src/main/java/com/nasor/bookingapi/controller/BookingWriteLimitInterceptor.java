@@ -0,0 +1,61 @@
+package com.nasor.bookingapi.controller;
+
+import com.nasor.bookingapi.exception.ServiceOverloadedException;
+import com.nasor.bookingapi.exception.TooManyRequestsException;
+import com.nasor.bookingapi.service.BookingWriteLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects booking writes before they reach a controller: 429 when the client (see {@link ClientIds}) has used
+ * up its rate, 503 when too many writes are already running. Both carry Retry-After. Reads pass through untouched.
+ */
+@Component
+public class BookingWriteLimitInterceptor implements HandlerInterceptor {
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final String ADMITTED_AT = BookingWriteLimitInterceptor.class.getName() + ".admittedAt";
+
+    private final BookingWriteLimiter limiter;
+    private final String clientHeader;
+
+    public BookingWriteLimitInterceptor(BookingWriteLimiter limiter,
+                                        @Value(ClientIds.HEADER_PROPERTY) String clientHeader) {
+        this.limiter = limiter;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (SAFE_METHODS.contains(request.getMethod())) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        long wait = limiter.tryAcquireRate(ClientIds.of(request, clientHeader), now);
+        if (wait > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L))));
+            throw new TooManyRequestsException("Too many booking requests, retry later");
+        }
+        if (!limiter.tryAcquireConcurrency()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            throw new ServiceOverloadedException("Booking service is busy, retry shortly");
+        }
+        request.setAttribute(ADMITTED_AT, now);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED_AT) instanceof Long admittedAt) {
+            request.removeAttribute(ADMITTED_AT);
+            limiter.release(System.nanoTime() - admittedAt);
+        }
+    }
+}
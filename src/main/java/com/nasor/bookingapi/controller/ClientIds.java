@@ -0,0 +1,25 @@
+package com.nasor.bookingapi.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Tells API clients apart: by the header named in booking.limits.client-header when a trusted gateway sets
+ * one, otherwise by remote address. Behind a proxy, set server.forward-headers-strategy so the remote address
+ * is the caller's rather than the proxy's.
+ */
+public final class ClientIds {
+    public static final String HEADER_PROPERTY = "${booking.limits.client-header:}";
+
+    private ClientIds() {
+    }
+
+    public static String of(HttpServletRequest request, String clientHeader) {
+        if (!clientHeader.isEmpty()) {
+            String client = request.getHeader(clientHeader);
+            if (client != null && !client.isBlank()) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
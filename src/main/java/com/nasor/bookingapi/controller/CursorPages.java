@@ -0,0 +1,36 @@
+package com.nasor.bookingapi.controller;
+
+import com.nasor.bookingapi.dto.page.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keeps list endpoints returning a plain JSON array; the cursor for the next page travels in headers.
+ */
+final class CursorPages {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private CursorPages() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        return ok(page, Function.identity());
+    }
+
+    static <T, B> ResponseEntity<B> ok(CursorPage<T> page, Function<List<T>, B> body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            String next = ServletUriComponentsBuilder
+                    .fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextCursor())
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString())
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(body.apply(page.items()));
+    }
+}
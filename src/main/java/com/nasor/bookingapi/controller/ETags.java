@@ -0,0 +1,50 @@
+package com.nasor.bookingapi.controller;
+
+import com.nasor.bookingapi.exception.PreconditionFailedException;
+import com.nasor.bookingapi.repository.projection.BookingVersions;
+
+/**
+ * Strong ETags built from entity versions and collection change counters, never from the response body,
+ * so a conditional GET can be answered before anything is loaded or serialized.
+ */
+final class ETags {
+    private ETags() {
+    }
+
+    static String of(long version) {
+        return quote(Long.toString(version));
+    }
+
+    static String of(BookingVersions versions) {
+        return quote(versions.getBookingVersion() + "." + versions.getRoomVersion() + "." + versions.getUserVersion());
+    }
+
+    static String ofCollection(String token) {
+        return quote(token);
+    }
+
+    /**
+     * Entity version carried by an If-Match header, or null when the header is absent or "*". For a booking
+     * tag only the booking's own version counts, so edits to its room or user do not fail the precondition.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new PreconditionFailedException("If-Match must be a single strong ETag returned by this API");
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int dot = value.indexOf('.');
+        try {
+            return Long.parseLong(dot < 0 ? value : value.substring(0, dot));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match must be a single strong ETag returned by this API");
+        }
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
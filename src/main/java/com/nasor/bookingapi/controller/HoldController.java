@@ -0,0 +1,151 @@
+package com.nasor.bookingapi.controller;
+
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.dto.hold.HoldDto;
+import com.nasor.bookingapi.dto.hold.HoldRequest;
+import com.nasor.bookingapi.service.HoldService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/holds")
+@Tag(name = "Holds", description = "Tentative reservations that block a room for a few minutes during checkout.")
+public class HoldController {
+    private final HoldService holdService;
+
+    public HoldController(HoldService holdService) {
+        this.holdService = holdService;
+    }
+
+    @Operation(summary = "Hold a Room",
+            description = "Reserves a room for the given dates for a limited time. While the hold is active no one else can book or hold overlapping dates.",
+            operationId = "createHold")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Hold created successfully",
+                    headers = @Header(
+                            name = "Location",
+                            description = "URI of the newly created hold",
+                            schema = @Schema(type = "string", format = "uri")
+                    ),
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = HoldDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid hold details or dates provided",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Room or User not found with the provided IDs",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Dates overlap with an existing booking or hold",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Too many requests from this client; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many writes in progress; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @PostMapping
+    public ResponseEntity<HoldDto> createHold(
+            @Valid
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Room, user, dates and optional duration of the hold",
+                    required = true,
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = HoldRequest.class))
+            )
+            @RequestBody HoldRequest holdRequest) {
+        HoldDto hold = holdService.create(holdRequest);
+
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(hold.id())
+                .toUri();
+
+        return ResponseEntity.created(location).body(hold);
+    }
+
+    @Operation(summary = "Get Hold by ID",
+            description = "Retrieves an active hold.",
+            operationId = "getHoldById")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Hold found successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = HoldDto.class))),
+            @ApiResponse(responseCode = "404", description = "Hold not found or already expired, confirmed or released",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<HoldDto> getHoldById(@PathVariable UUID id) {
+        return ResponseEntity.ok(holdService.findById(id));
+    }
+
+    @Operation(summary = "Confirm a Hold",
+            description = "Turns an active hold into a booking for the held room and dates, then releases the hold.",
+            operationId = "confirmHold")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Booking created from the hold",
+                    headers = @Header(
+                            name = "Location",
+                            description = "URI of the newly created booking resource",
+                            schema = @Schema(type = "string", format = "uri", example = "http://localhost:8080/api/v1/bookings/1")
+                    ),
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookingDto.class))),
+            @ApiResponse(responseCode = "404", description = "Hold not found or already expired, confirmed or released",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "A booking for overlapping dates was created before the hold",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Too many requests from this client; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many writes in progress; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<BookingDto> confirmHold(@PathVariable UUID id) {
+        BookingDto booking = holdService.confirm(id);
+
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath()
+                .path("/api/v1/bookings/{id}")
+                .buildAndExpand(booking.id())
+                .toUri();
+
+        return ResponseEntity.created(location).body(booking);
+    }
+
+    @Operation(summary = "Release a Hold",
+            description = "Gives up an active hold so the dates become available again.",
+            operationId = "releaseHold")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Hold released successfully (No Content)",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Hold not found or already expired, confirmed or released",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Too many requests from this client; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many writes in progress; retry after the Retry-After delay",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> releaseHold(@PathVariable UUID id) {
+        holdService.release(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,9 +1,19 @@
 package com.nasor.bookingapi.controller;
 
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.dto.page.CursorPage;
+import com.nasor.bookingapi.dto.room.OccupancyCalendarDto;
+import com.nasor.bookingapi.dto.room.RoomBookingSummaryDto;
 import com.nasor.bookingapi.dto.room.RoomDto;
+import com.nasor.bookingapi.dto.room.RoomQuoteDto;
 import com.nasor.bookingapi.dto.room.RoomRequestRegistration;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.service.BookingService;
+import com.nasor.bookingapi.service.CollectionVersions;
+import com.nasor.bookingapi.service.QuoteService;
 import com.nasor.bookingapi.service.RoomService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,36 +22,142 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/rooms")
 @Tag(name = "Rooms", description = "Operations for managing hotel rooms.")
 public class RoomController {
     private final RoomService roomService;
+    private final BookingService bookingService;
+    private final CollectionVersions collectionVersions;
+    private final QuoteService quoteService;
 
-    public RoomController(RoomService roomService) {
+    public RoomController(RoomService roomService, BookingService bookingService, CollectionVersions collectionVersions,
+                          QuoteService quoteService) {
         this.roomService = roomService;
+        this.bookingService = bookingService;
+        this.collectionVersions = collectionVersions;
+        this.quoteService = quoteService;
     }
 
     @Operation(summary = "Get All Existing Rooms",
-            description = "Retrieves a list of all available rooms in the system.",
+            description = "Retrieves rooms in id order, one page at a time. Follow the next cursor to walk all rooms.",
             operationId = "getAllRooms")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of rooms",
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of rooms",
+                    headers = {
+                            @Header(name = CursorPages.NEXT_CURSOR_HEADER,
+                                    description = "Value to pass as 'after' for the next page; absent on the last page",
+                                    schema = @Schema(type = "integer", format = "int64")),
+                            @Header(name = "Link",
+                                    description = "URI of the next page with rel=\"next\"; absent on the last page",
+                                    schema = @Schema(type = "string"))
+                    },
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = RoomDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping
-    public ResponseEntity<List<RoomDto>> getAllRooms() {
-        return  ResponseEntity.ok(roomService.findAll());
+    public ResponseEntity<List<RoomDto>> getAllRooms(
+            @Parameter(description = "Only return rooms with an id greater than this cursor")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of rooms to return")
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) @Min(1) @Max(CursorPage.MAX_LIMIT) int limit,
+            WebRequest request) {
+        return collectionVersions.read(CollectionVersions.Name.ROOMS, token -> {
+            if (request.checkNotModified(ETags.ofCollection(token))) {
+                return null;
+            }
+            return CursorPages.ok(roomService.findAll(after, limit));
+        });
+    }
+
+    @Operation(summary = "Search Available Rooms",
+            description = "Retrieves every room with no booking overlapping the given dates, optionally filtered by type and maximum price per night.",
+            operationId = "getAvailableRooms")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of available rooms",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = RoomDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid dates provided",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/available")
+    public ResponseEntity<List<RoomDto>> getAvailableRooms(
+            @Parameter(description = "First night of the stay", example = "2025-08-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Check-out date", example = "2025-08-07")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Only rooms of this type")
+            @RequestParam(required = false) RoomType type,
+            @Parameter(description = "Only rooms at or below this price per night", example = "120.00")
+            @RequestParam(required = false) Double maxPrice) {
+        return ResponseEntity.ok(roomService.findAvailable(from, to, type, maxPrice));
+    }
+
+    @Operation(summary = "Quote Available Rooms",
+            description = "Prices the stay in every room free for the whole stay, optionally of one type, using seasonal, weekday and occupancy rates. Stays are limited to " + QuoteService.MAX_QUOTE_NIGHTS + " nights.",
+            operationId = "getAvailableRoomQuotes")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully priced the available rooms",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = RoomQuoteDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid dates or stay too long",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/quotes")
+    public ResponseEntity<List<RoomQuoteDto>> getAvailableRoomQuotes(
+            @Parameter(description = "First night of the stay", example = "2025-08-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Check-out date", example = "2025-08-07")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Only rooms of this type")
+            @RequestParam(required = false) RoomType type) {
+        return ResponseEntity.ok(quoteService.quoteAvailable(from, to, type));
+    }
+
+    @Operation(summary = "Get Room Occupancy Calendar",
+            description = "Retrieves, for every room, one character per night from 'from' up to the day before 'to': '1' when the night is booked, '0' when it is free. The window is limited to " + RoomService.MAX_OCCUPANCY_NIGHTS + " nights.",
+            operationId = "getRoomOccupancy")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the occupancy grid",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = OccupancyCalendarDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid dates or window too long",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/occupancy")
+    public ResponseEntity<OccupancyCalendarDto> getRoomOccupancy(
+            @Parameter(description = "First night of the grid", example = "2025-08-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Day after the last night of the grid", example = "2025-10-30")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(roomService.findOccupancy(from, to));
     }
 
     @Operation(summary = "Get Room by ID",
@@ -51,16 +167,89 @@ public class RoomController {
             @ApiResponse(responseCode = "200", description = "Room found successfully",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = RoomDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Room not found with the specified ID",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<RoomDto> getRoomById(@PathVariable Long id) {
+    public ResponseEntity<RoomDto> getRoomById(@PathVariable Long id, WebRequest request) {
+        Optional<Long> version = roomService.findVersion(id);
+        if (version.isPresent() && request.checkNotModified(ETags.of(version.get()))) {
+            return null;
+        }
         return ResponseEntity.ok(roomService.findById(id));
     }
 
+    @Operation(summary = "Get Bookings of a Room",
+            description = "Retrieves the bookings of a room whose stay touches the optional [from, to] window, ordered by entry date.",
+            operationId = "getRoomBookings")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the bookings of the room",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = BookingDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid dates provided",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Room not found with the specified ID",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/bookings")
+    public ResponseEntity<List<BookingDto>> getRoomBookings(
+            @PathVariable Long id,
+            @Parameter(description = "Only stays ending on or after this date", example = "2025-08-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Only stays starting on or before this date", example = "2025-08-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Entry date order")
+            @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return ResponseEntity.ok(bookingService.findBookingsByRoom(id, from, to, order));
+    }
+
+    @Operation(summary = "Quote a Room",
+            description = "Prices a stay in the room night by night using seasonal, weekday and occupancy rates. Does not check availability. Stays are limited to " + QuoteService.MAX_QUOTE_NIGHTS + " nights.",
+            operationId = "getRoomQuote")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Quote computed successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RoomQuoteDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid dates or stay too long",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Room not found with the specified ID",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/quote")
+    public ResponseEntity<RoomQuoteDto> getRoomQuote(
+            @PathVariable Long id,
+            @Parameter(description = "First night of the stay", example = "2025-08-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Check-out date", example = "2025-08-07")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(quoteService.quoteRoom(id, from, to));
+    }
+
+    @Operation(summary = "Get Room Booking Summary",
+            description = "Retrieves upcoming bookings, nights booked this month and the next free night of a room.",
+            operationId = "getRoomSummary")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Summary computed successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RoomBookingSummaryDto.class))),
+            @ApiResponse(responseCode = "404", description = "Room not found with the specified ID",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<RoomBookingSummaryDto> getRoomSummary(@PathVariable Long id) {
+        return ResponseEntity.ok(bookingService.findRoomSummary(id));
+    }
+
     @Operation(summary = "Create a New Room",
             description = "Registers a new room with its details (name, type, price per night).",
             operationId = "createRoom")
@@ -112,13 +301,17 @@ public class RoomController {
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid room details provided",
                     content = @Content),
-            @ApiResponse(responseCode = "409", description = "Room with provided name already exists after update",
+            @ApiResponse(responseCode = "409", description = "Room with provided name already exists after update, or the room was modified concurrently",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<RoomDto> updateRoom(@PathVariable Long id,
+                                              @Parameter(description = "ETag from a previous GET; the update is rejected with 412 if the room changed since")
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                               @Valid
                                               @io.swagger.v3.oas.annotations.parameters.RequestBody(
                                                       description = "Updated room details",
@@ -127,7 +320,7 @@ public class RoomController {
                                                               schema = @Schema(implementation = RoomRequestRegistration.class)) // Asumo que se usa el mismo DTO para update
                                               )
                                               @RequestBody RoomRequestRegistration roomRequestRegistration) {
-        return ResponseEntity.ok(roomService.update(id, roomRequestRegistration));
+        return ResponseEntity.ok(roomService.update(id, roomRequestRegistration, ETags.expectedVersion(ifMatch)));
     }
 
     @Operation(summary = "Delete Room by ID",
@@ -1,9 +1,14 @@
 package com.nasor.bookingapi.controller;
 
+import com.nasor.bookingapi.dto.booking.UserBookingDto;
+import com.nasor.bookingapi.dto.page.CursorPage;
 import com.nasor.bookingapi.dto.user.UserDto;
 import com.nasor.bookingapi.dto.user.UserRequestRegistration;
+import com.nasor.bookingapi.service.BookingService;
+import com.nasor.bookingapi.service.CollectionVersions;
 import com.nasor.bookingapi.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,12 +17,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("api/v1/users")
@@ -25,26 +37,89 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final BookingService bookingService;
+    private final CollectionVersions collectionVersions;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, BookingService bookingService, CollectionVersions collectionVersions) {
         this.userService = userService;
+        this.bookingService = bookingService;
+        this.collectionVersions = collectionVersions;
     }
 
 
     @Operation(summary = "Get All Existing Users",
-            description = "Retrieves a list of all registered users in the system.",
+            description = "Retrieves registered users in id order, one page at a time. Follow the next cursor to walk all users.",
             operationId = "getAllUsers"
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of users",
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of users",
+                    headers = {
+                            @Header(name = CursorPages.NEXT_CURSOR_HEADER,
+                                    description = "Value to pass as 'after' for the next page; absent on the last page",
+                                    schema = @Schema(type = "integer", format = "int64")),
+                            @Header(name = "Link",
+                                    description = "URI of the next page with rel=\"next\"; absent on the last page",
+                                    schema = @Schema(type = "string"))
+                    },
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = UserDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        return  ResponseEntity.ok(userService.findAll());
+    public ResponseEntity<List<UserDto>> getAllUsers(
+            @Parameter(description = "Only return users with an id greater than this cursor")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of users to return")
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) @Min(1) @Max(CursorPage.MAX_LIMIT) int limit,
+            WebRequest request) {
+        return collectionVersions.read(CollectionVersions.Name.USERS, token -> {
+            if (request.checkNotModified(ETags.ofCollection(token))) {
+                return null;
+            }
+            return CursorPages.ok(userService.findAll(after, limit));
+        });
+    }
+
+    @Operation(summary = "Get Bookings of a User",
+            description = "Retrieves a guest's bookings in id order, one page at a time, optionally limited to stays touching the [from, to] window.",
+            operationId = "getUserBookings"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of the user's bookings",
+                    headers = {
+                            @Header(name = CursorPages.NEXT_CURSOR_HEADER,
+                                    description = "Value to pass as 'after' for the next page; absent on the last page",
+                                    schema = @Schema(type = "integer", format = "int64")),
+                            @Header(name = "Link",
+                                    description = "URI of the next page with rel=\"next\"; absent on the last page",
+                                    schema = @Schema(type = "string"))
+                    },
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = UserBookingDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid dates, cursor or limit",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "User not found with the specified ID",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/bookings")
+    public ResponseEntity<List<UserBookingDto>> getUserBookings(
+            @PathVariable Long id,
+            @Parameter(description = "Only stays ending on or after this date", example = "2025-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Only stays starting on or before this date", example = "2025-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Only return bookings with an id greater than this cursor")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of bookings to return")
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) @Min(1) @Max(CursorPage.MAX_LIMIT) int limit) {
+        return CursorPages.ok(bookingService.findBookingsByUser(id, from, to, after, limit));
     }
 
     @Operation(summary = "Get User by ID",
@@ -55,13 +130,19 @@ public class UserController {
             @ApiResponse(responseCode = "200", description = "User found successfully",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found with the specified ID",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDto> getUserById(@PathVariable Long id, WebRequest request) {
+        Optional<Long> version = userService.findVersion(id);
+        if (version.isPresent() && request.checkNotModified(ETags.of(version.get()))) {
+            return null;
+        }
         return ResponseEntity.ok(userService.findById(id));
     }
 
@@ -117,13 +198,17 @@ public class UserController {
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid user details provided",
                     content = @Content),
-            @ApiResponse(responseCode = "409", description = "User with provided email already exists after update",
+            @ApiResponse(responseCode = "409", description = "User with provided email already exists after update, or the user was modified concurrently",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<UserDto> updateUser(@PathVariable Long id,
+                                          @Parameter(description = "ETag from a previous GET; the update is rejected with 412 if the user changed since")
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                           @Valid
                                           @io.swagger.v3.oas.annotations.parameters.RequestBody(
                                                   description = "Updated user details",
@@ -132,7 +217,7 @@ public class UserController {
                                                           schema = @Schema(implementation = UserRequestRegistration.class))
                                           )
                                           @RequestBody UserRequestRegistration registration) {
-        UserDto userDto = userService.update(id, registration);
+        UserDto userDto = userService.update(id, registration, ETags.expectedVersion(ifMatch));
         return ResponseEntity.ok(userDto);
     }
 
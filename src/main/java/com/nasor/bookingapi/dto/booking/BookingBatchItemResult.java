@@ -0,0 +1,14 @@
+package com.nasor.bookingapi.dto.booking;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record BookingBatchItemResult(
+        @Schema(example = "0", description = "Position of the booking in the request")
+        int index,
+        @Schema(example = "CREATED")
+        BookingBatchItemStatus status,
+        @Schema(description = "The created booking, when status is CREATED")
+        BookingDto booking,
+        @Schema(example = "Room not found", description = "Why the booking was not created")
+        String error) {
+}
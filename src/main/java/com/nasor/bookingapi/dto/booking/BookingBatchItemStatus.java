@@ -0,0 +1,10 @@
+package com.nasor.bookingapi.dto.booking;
+
+public enum BookingBatchItemStatus {
+    CREATED,
+    INVALID_DATES,
+    NOT_FOUND,
+    CONFLICT,
+    /** Valid on its own, but not created because another item failed in ALL_OR_NOTHING mode. */
+    SKIPPED
+}
@@ -0,0 +1,8 @@
+package com.nasor.bookingapi.dto.booking;
+
+public enum BookingBatchMode {
+    /** Nothing is created unless every booking in the batch can be created. */
+    ALL_OR_NOTHING,
+    /** Valid bookings are created; the others are reported individually. */
+    BEST_EFFORT
+}
@@ -0,0 +1,18 @@
+package com.nasor.bookingapi.dto.booking;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BookingBatchRequest(
+        @Schema(example = "ALL_OR_NOTHING", description = "Whether one failing booking rejects the whole batch")
+        @NotNull(message = "Batch mode cannot be null")
+        BookingBatchMode mode,
+        @NotEmpty(message = "Bookings cannot be empty")
+        @Size(max = 500, message = "A batch cannot contain more than 500 bookings")
+        List<@Valid @NotNull BookingRequestRegistration> bookings) {
+}
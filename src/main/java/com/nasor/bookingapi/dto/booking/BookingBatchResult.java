@@ -0,0 +1,16 @@
+package com.nasor.bookingapi.dto.booking;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record BookingBatchResult(
+        @Schema(example = "ALL_OR_NOTHING")
+        BookingBatchMode mode,
+        @Schema(example = "2")
+        int created,
+        @Schema(example = "0")
+        int failed,
+        @Schema(description = "One result per requested booking, in request order")
+        List<BookingBatchItemResult> items) {
+}
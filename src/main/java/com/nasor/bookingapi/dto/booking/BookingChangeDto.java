@@ -0,0 +1,22 @@
+package com.nasor.bookingapi.dto.booking;
+
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import com.nasor.bookingapi.event.BookingSnapshot;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+public record BookingChangeDto(
+        @Schema(example = "42", description = "Position in the change feed; pass the last one seen as 'since'")
+        long sequence,
+        @Schema(example = "CREATED")
+        BookingChangedEvent.ChangeType type,
+        @Schema(example = "1")
+        Long bookingId,
+        @Schema(description = "The booking before the change; null for creations")
+        BookingSnapshot before,
+        @Schema(description = "The booking after the change; null for deletions")
+        BookingSnapshot after,
+        @Schema(example = "2025-08-01T10:15:30Z", description = "When the change was written")
+        Instant occurredAt) {
+}
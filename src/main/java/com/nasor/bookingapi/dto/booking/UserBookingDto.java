@@ -0,0 +1,19 @@
+package com.nasor.bookingapi.dto.booking;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+// Selected column by column in BookingRepository.findUserBookings, without loading Booking, Room or User
+public record UserBookingDto(
+        @Schema(example = "1")
+        Long id,
+        @Schema(example = "1")
+        Long roomId,
+        @Schema(example = "304")
+        String roomNumber,
+        @Schema(example = "2025-08-01", description = "The date the booking starts")
+        LocalDate entryDate,
+        @Schema(example = "2025-08-07", description = "The date the booking ends")
+        LocalDate exitDate) {
+}
@@ -0,0 +1,22 @@
+package com.nasor.bookingapi.dto.hold;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record HoldDto(
+        @Schema(example = "0b7c6f0e-8f7a-4c1e-9a51-3f1e2d0c9b11")
+        UUID id,
+        @Schema(example = "1")
+        Long roomId,
+        @Schema(example = "1")
+        Long userId,
+        @Schema(example = "2025-08-01", description = "The date the held stay starts")
+        LocalDate entryDate,
+        @Schema(example = "2025-08-07", description = "The date the held stay ends")
+        LocalDate exitDate,
+        @Schema(example = "2025-07-20T10:15:00Z", description = "When the hold is released unless confirmed")
+        Instant expiresAt) {
+}
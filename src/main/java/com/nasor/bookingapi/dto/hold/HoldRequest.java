@@ -0,0 +1,25 @@
+package com.nasor.bookingapi.dto.hold;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+public record HoldRequest(
+        @NotNull(message = "Room ID cannot be null")
+        Long roomId,
+        @NotNull(message = "User ID cannot be null")
+        Long userId,
+        @NotNull(message = "Entry date cannot be null")
+        @FutureOrPresent(message = "Entry date must be today or in the future")
+        LocalDate entryDate,
+        @NotNull(message = "Exit date cannot be null")
+        @FutureOrPresent(message = "Exit date must be today or in the future")
+        LocalDate exitDate,
+        @Schema(example = "15", description = "How long the hold lasts; defaults to booking.holds.default-ttl")
+        @Min(value = 1, message = "A hold lasts at least one minute")
+        @Max(value = 60, message = "A hold lasts at most 60 minutes")
+        Integer minutes) {
+}
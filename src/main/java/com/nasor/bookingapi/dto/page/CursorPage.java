@@ -0,0 +1,29 @@
+package com.nasor.bookingapi.dto.page;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is the id to pass as {@code after}
+ * for the following page, or null on the last page.
+ */
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * Builds a page from a query that was asked for {@code limit + 1} rows; the extra row only
+     * signals that another page exists and is dropped.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int limit, ToLongFunction<E> idOf, Function<E, T> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<E> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        Long nextCursor = hasMore ? idOf.applyAsLong(pageRows.get(pageRows.size() - 1)) : null;
+        return new CursorPage<>(pageRows.stream().map(mapper).toList(), nextCursor);
+    }
+
+    public static long startAfter(Long after) {
+        return after == null ? 0L : after;
+    }
+}
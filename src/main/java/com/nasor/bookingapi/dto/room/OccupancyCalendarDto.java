@@ -0,0 +1,14 @@
+package com.nasor.bookingapi.dto.room;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record OccupancyCalendarDto(
+        @Schema(example = "2025-08-01", description = "First night of the grid")
+        LocalDate from,
+        @Schema(example = "2025-08-08", description = "Day after the last night of the grid")
+        LocalDate to,
+        List<RoomOccupancyDto> rooms) {
+}
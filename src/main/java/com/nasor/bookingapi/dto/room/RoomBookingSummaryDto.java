@@ -0,0 +1,16 @@
+package com.nasor.bookingapi.dto.room;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+public record RoomBookingSummaryDto(
+        @Schema(example = "1")
+        Long roomId,
+        @Schema(example = "4", description = "Bookings arriving today or later")
+        int upcomingBookings,
+        @Schema(example = "12", description = "Booked nights in the current calendar month")
+        int nightsBookedThisMonth,
+        @Schema(example = "2025-08-07", description = "First date, from today on, that a new booking can start on; the exit day of a stay is not free")
+        LocalDate nextFreeDate) {
+}
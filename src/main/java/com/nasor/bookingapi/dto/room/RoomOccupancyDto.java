@@ -0,0 +1,12 @@
+package com.nasor.bookingapi.dto.room;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record RoomOccupancyDto(
+        @Schema(example = "1")
+        Long roomId,
+        @Schema(example = "304")
+        String number,
+        @Schema(example = "0011100", description = "One character per night starting at 'from': '1' occupied, '0' free")
+        String nights) {
+}
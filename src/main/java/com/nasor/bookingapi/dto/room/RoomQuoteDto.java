@@ -0,0 +1,25 @@
+package com.nasor.bookingapi.dto.room;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public record RoomQuoteDto(
+        @Schema(example = "1")
+        Long roomId,
+        @Schema(example = "304")
+        String number,
+        @Schema(example = "STANDARD", description = "Type of the room (e.g., STANDARD, DELUXE)")
+        String roomType,
+        @Schema(example = "2025-08-01", description = "First night of the stay")
+        LocalDate from,
+        @Schema(example = "2025-08-04", description = "Check-out date")
+        LocalDate to,
+        @Schema(example = "241.50", description = "Sum of the nightly prices")
+        BigDecimal total,
+        @ArraySchema(schema = @Schema(example = "80.50", description = "Price of each night starting at 'from', after seasonal, weekday and occupancy rates"))
+        List<BigDecimal> nightlyPrices) {
+}
@@ -0,0 +1,15 @@
+package com.nasor.bookingapi.event;
+
+import com.nasor.bookingapi.dto.booking.BookingChangeDto;
+
+import java.util.List;
+
+/**
+ * Destination of the booking outbox relay. Called with each batch in sequence order before the batch is marked
+ * published; throwing leaves the batch unpublished for the next run, so delivery is at least once and
+ * consumers should skip sequences they have already seen. Define a bean of this type to replace the sink
+ * chosen by booking.outbox.sink.
+ */
+public interface BookingChangeSink {
+    void publish(List<BookingChangeDto> changes) throws Exception;
+}
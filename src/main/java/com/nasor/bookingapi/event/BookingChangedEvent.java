@@ -0,0 +1,24 @@
+package com.nasor.bookingapi.event;
+
+/**
+ * Published by {@code BookingService} inside the writing transaction. {@code before} is null for
+ * creations and {@code after} is null for deletions.
+ */
+public record BookingChangedEvent(ChangeType type, BookingSnapshot before, BookingSnapshot after) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static BookingChangedEvent created(BookingSnapshot after) {
+        return new BookingChangedEvent(ChangeType.CREATED, null, after);
+    }
+
+    public static BookingChangedEvent updated(BookingSnapshot before, BookingSnapshot after) {
+        return new BookingChangedEvent(ChangeType.UPDATED, before, after);
+    }
+
+    public static BookingChangedEvent deleted(BookingSnapshot before) {
+        return new BookingChangedEvent(ChangeType.DELETED, before, null);
+    }
+}
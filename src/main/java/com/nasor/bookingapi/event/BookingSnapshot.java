@@ -0,0 +1,16 @@
+package com.nasor.bookingapi.event;
+
+import com.nasor.bookingapi.model.Booking;
+
+import java.time.LocalDate;
+
+public record BookingSnapshot(Long id, Long roomId, Long userId, LocalDate entryDate, LocalDate exitDate) {
+
+    public static BookingSnapshot of(Booking booking) {
+        return new BookingSnapshot(booking.getId(),
+                booking.getRoom().getId(),
+                booking.getUser().getId(),
+                booking.getEntryDate(),
+                booking.getExitDate());
+    }
+}
@@ -0,0 +1,36 @@
+package com.nasor.bookingapi.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nasor.bookingapi.dto.booking.BookingChangeDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends each change as one JSON line, for local testing: {@code tail -f} the file to watch the stream.
+ */
+public class FileBookingChangeSink implements BookingChangeSink {
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileBookingChangeSink(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<BookingChangeDto> changes) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (BookingChangeDto change : changes) {
+                writer.write(objectMapper.writeValueAsString(change));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.nasor.bookingapi.event;
+
+import com.nasor.bookingapi.dto.booking.BookingChangeDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+@Slf4j
+public class LoggingBookingChangeSink implements BookingChangeSink {
+    @Override
+    public void publish(List<BookingChangeDto> changes) {
+        for (BookingChangeDto change : changes) {
+            log.info("Booking change {}: {} booking {}", change.sequence(), change.type(), change.bookingId());
+        }
+    }
+}
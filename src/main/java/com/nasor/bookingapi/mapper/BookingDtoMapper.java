@@ -29,6 +29,11 @@ public class BookingDtoMapper implements Function<Booking, BookingDto> {
         RoomDto roomDto = roomDtoMapper.apply(room);
         UserDto userDto = userDtoMapper.apply(user);
 
+        return apply(booking, roomDto, userDto);
+    }
+
+    // For callers that already hold the room and user DTOs (e.g. from cache) and must not touch the associations
+    public BookingDto apply(Booking booking, RoomDto roomDto, UserDto userDto) {
         return new BookingDto(booking.getId(),
                 roomDto,
                 userDto,
@@ -0,0 +1,190 @@
+package com.nasor.bookingapi.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nasor.bookingapi.model.Booking;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.model.User;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes booking entities as the JSON array of BookingDto that Jackson would produce, field by field from the
+ * entities, so a page costs a few small buffers instead of four DTOs and their strings per booking. Rooms and
+ * users shared by many bookings are written again each time at no allocation cost; each room type is a JSON
+ * fragment rendered once at startup. Entities must have their room and user loaded.
+ * <p>
+ * The field layout mirrors BookingDto, RoomDto and UserDto with Boot's default Jackson settings;
+ * BookingJsonWriterTests compares the two, so a change to those records must be made here too.
+ */
+@Component
+public class BookingJsonWriter {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString ROOM = new SerializedString("room");
+    private static final SerializedString USER = new SerializedString("user");
+    private static final SerializedString ENTRY_DATE = new SerializedString("entryDate");
+    private static final SerializedString EXIT_DATE = new SerializedString("exitDate");
+    private static final SerializedString NUMBER = new SerializedString("number");
+    private static final SerializedString ROOM_TYPE = new SerializedString("roomType");
+    private static final SerializedString PRICE_PER_NIGHT = new SerializedString("pricePerNight");
+    private static final SerializedString FULL_NAME = new SerializedString("fullName");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString ADDRESS = new SerializedString("address");
+    private static final SerializedString PHONE_NUMBER = new SerializedString("phoneNumber");
+    // Prices from 0.00 up to here with whole cents print the same as Double.toString
+    private static final double MAX_CENTS_PRICE = 1e7;
+
+    private final Map<RoomType, SerializableString> roomTypes = new EnumMap<>(RoomType.class);
+
+    public BookingJsonWriter(ObjectMapper objectMapper) {
+        try {
+            for (RoomType type : RoomType.values()) {
+                roomTypes.put(type, new SerializedString(objectMapper.writeValueAsString(RoomDtoMapper.toDto(type))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeArray(List<Booking> bookings, JsonGenerator generator) throws IOException {
+        Buffers buffers = new Buffers();
+        generator.writeStartArray(bookings, bookings.size());
+        for (Booking booking : bookings) {
+            generator.writeStartObject();
+            generator.writeFieldName(ID);
+            writeNumber(generator, booking.getId());
+            generator.writeFieldName(ROOM);
+            writeRoom(generator, booking.getRoom(), buffers);
+            generator.writeFieldName(USER);
+            writeUser(generator, booking.getUser(), buffers);
+            generator.writeFieldName(ENTRY_DATE);
+            writeDate(generator, booking.getEntryDate(), buffers.date);
+            generator.writeFieldName(EXIT_DATE);
+            writeDate(generator, booking.getExitDate(), buffers.date);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    // RoomDto
+    private void writeRoom(JsonGenerator generator, Room room, Buffers buffers) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        writeNumber(generator, room.getId());
+        generator.writeFieldName(NUMBER);
+        generator.writeString(room.getNumber());
+        generator.writeFieldName(ROOM_TYPE);
+        if (room.getType() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeRawValue(roomTypes.get(room.getType()));
+        }
+        generator.writeFieldName(PRICE_PER_NIGHT);
+        writePrice(generator, room.getPricePerNight(), buffers.price);
+        generator.writeEndObject();
+    }
+
+    // UserDto, with fullName as UserDtoMapper builds it
+    private static void writeUser(JsonGenerator generator, User user, Buffers buffers) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        writeNumber(generator, user.getId());
+        generator.writeFieldName(FULL_NAME);
+        String firstName = String.valueOf(user.getFirstName());
+        String lastName = String.valueOf(user.getLastName());
+        char[] name = buffers.name(firstName.length() + 1 + lastName.length());
+        firstName.getChars(0, firstName.length(), name, 0);
+        name[firstName.length()] = ' ';
+        lastName.getChars(0, lastName.length(), name, firstName.length() + 1);
+        generator.writeString(name, 0, firstName.length() + 1 + lastName.length());
+        generator.writeFieldName(EMAIL);
+        generator.writeString(user.getEmail());
+        generator.writeFieldName(ADDRESS);
+        generator.writeString(user.getAddress());
+        generator.writeFieldName(PHONE_NUMBER);
+        generator.writeString(user.getPhoneNumber());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    // Double.toString of a whole-cents price is its digits with trailing zeros dropped down to one decimal
+    private static void writePrice(JsonGenerator generator, Double value, char[] buffer) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+        double price = value;
+        long cents = Math.round(price * 100);
+        if (price < 0 || price >= MAX_CENTS_PRICE || cents / 100.0 != price) {
+            generator.writeNumber(price);
+            return;
+        }
+        int end = buffer.length;
+        if (cents % 10 != 0) {
+            buffer[--end] = (char) ('0' + cents % 10);
+        }
+        buffer[--end] = (char) ('0' + cents / 10 % 10);
+        buffer[--end] = '.';
+        long units = cents / 100;
+        do {
+            buffer[--end] = (char) ('0' + units % 10);
+            units /= 10;
+        } while (units > 0);
+        generator.writeNumber(buffer, end, buffer.length - end);
+    }
+
+    // ISO yyyy-MM-dd, as Jackson writes LocalDate with WRITE_DATES_AS_TIMESTAMPS off
+    private static void writeDate(JsonGenerator generator, LocalDate value, char[] buffer) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            generator.writeString(value.toString());
+            return;
+        }
+        digits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        digits(buffer, 5, value.getMonthValue(), 2);
+        buffer[7] = '-';
+        digits(buffer, 8, value.getDayOfMonth(), 2);
+        generator.writeString(buffer, 0, buffer.length);
+    }
+
+    private static void digits(char[] buffer, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--, value /= 10) {
+            buffer[i] = (char) ('0' + value % 10);
+        }
+    }
+
+    // Scratch space reused for every booking of one writeArray call
+    private static final class Buffers {
+        final char[] date = new char[10];
+        final char[] price = new char[12];
+        private char[] name = new char[64];
+
+        char[] name(int length) {
+            if (name.length < length) {
+                name = new char[Math.max(length, name.length * 2)];
+            }
+            return name;
+        }
+    }
+}
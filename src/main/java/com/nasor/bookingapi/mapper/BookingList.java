@@ -0,0 +1,12 @@
+package com.nasor.bookingapi.mapper;
+
+import com.nasor.bookingapi.model.Booking;
+
+import java.util.List;
+
+/**
+ * Response body of booking entities that {@link BookingListHttpMessageConverter} writes as a JSON array of
+ * BookingDto, in place of a List&lt;BookingDto&gt; mapped up front.
+ */
+public record BookingList(List<Booking> bookings) {
+}
@@ -0,0 +1,52 @@
+package com.nasor.bookingapi.mapper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link BookingList} response bodies through {@link BookingJsonWriter}. Spring Boot registers
+ * HttpMessageConverter beans ahead of its Jackson converter.
+ */
+@Component
+public class BookingListHttpMessageConverter extends AbstractHttpMessageConverter<BookingList> {
+    private final ObjectMapper objectMapper;
+    private final BookingJsonWriter bookingJsonWriter;
+
+    public BookingListHttpMessageConverter(ObjectMapper objectMapper, BookingJsonWriter bookingJsonWriter) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.bookingJsonWriter = bookingJsonWriter;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BookingList.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected BookingList readInternal(Class<? extends BookingList> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Booking lists are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(BookingList bookings, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            bookingJsonWriter.writeArray(bookings.bookings(), generator);
+        }
+    }
+}
@@ -3,23 +3,34 @@ package com.nasor.bookingapi.mapper;
 import com.nasor.bookingapi.dto.room.RoomDto;
 import com.nasor.bookingapi.dto.room.RoomTypeDto;
 import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.RoomType;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.function.Function;
 
 @Service
 public class RoomDtoMapper implements Function<Room, RoomDto> {
+    private static final Map<RoomType, RoomTypeDto> ROOM_TYPES = new EnumMap<>(RoomType.class);
+
+    static {
+        for (RoomType type : RoomType.values()) {
+            ROOM_TYPES.put(type, new RoomTypeDto(type.name(), type.getDescription()));
+        }
+    }
 
     @Override
     public RoomDto apply(Room room) {
-        RoomTypeDto roomTypeDto = new RoomTypeDto(
-                room.getType().name(),
-                room.getType().getDescription());
-
         return new RoomDto(
                 room.getId(),
                 room.getNumber(),
-                roomTypeDto,
+                toDto(room.getType()),
                 room.getPricePerNight());
     }
+
+    // RoomTypeDto is immutable, so every room of a type shares one instance
+    public static RoomTypeDto toDto(RoomType type) {
+        return ROOM_TYPES.get(type);
+    }
 }
@@ -0,0 +1,52 @@
+package com.nasor.bookingapi.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A price multiplier for the nights it matches; see V10__rate_rule.sql for how rules combine.
+ */
+@Getter @Setter
+@Entity
+@Table(name = "rate_rule")
+public class RateRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "name", nullable = false)
+    @Size(max = 255)
+    @NotBlank
+    private String name;
+
+    @Column(name = "room_category")
+    @Enumerated(EnumType.STRING)
+    private RoomType type;
+
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    // Bit (dayOfWeek - 1) set for every weekday the rule applies to; null for every day
+    @Column(name = "days_of_week")
+    private Short daysOfWeek;
+
+    @Column(name = "min_occupancy", precision = 5, scale = 4)
+    private BigDecimal minOccupancy;
+
+    @Column(name = "multiplier", nullable = false, precision = 8, scale = 4)
+    @Positive
+    @NotNull
+    private BigDecimal multiplier;
+}
@@ -32,5 +32,7 @@ public class Room {
     @NotNull
     private Double pricePerNight;
 
-
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -43,4 +43,8 @@ public class User {
     @NotBlank
     @Size(max = 255)
     private String phoneNumber;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
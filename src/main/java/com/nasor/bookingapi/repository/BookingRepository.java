@@ -1,17 +1,37 @@
 package com.nasor.bookingapi.repository;
 
+import com.nasor.bookingapi.dto.booking.UserBookingDto;
 import com.nasor.bookingapi.model.Booking;
+import com.nasor.bookingapi.repository.projection.BookingInterval;
+import com.nasor.bookingapi.repository.projection.BookingVersions;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    // Room and user are lazy; read paths that map to BookingDto fetch them in the same statement
+    @Override
+    @EntityGraph(attributePaths = {"room", "user"})
+    Optional<Booking> findById(Long id);
+
+    // A BookingDto embeds its room and user, so its version is made of all three
+    @Query("SELECT b.version AS bookingVersion, r.version AS roomVersion, u.version AS userVersion " +
+            "FROM Booking b JOIN b.room r JOIN b.user u WHERE b.id = :id")
+    Optional<BookingVersions> findVersionsById(@Param("id") Long id);
 
     // Get all overlapping bookings to check if available room
     @Query("SELECT b FROM Booking b WHERE b.room.id = :roomId " +
@@ -27,5 +47,46 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                                           @Param("exitDate") LocalDate exitDate,
                                                           @Param("bookingIdToExclude") Long bookingIdToExclude);
 
-    List<Booking> findAllByRoomId(Long roomId);
+    // Stays touching [from, to] (either bound may be null); served by idx_booking_room_dates
+    @EntityGraph(attributePaths = {"room", "user"})
+    @Query("SELECT b FROM Booking b WHERE b.room.id = :roomId " +
+            "AND (:from IS NULL OR b.exitDate >= :from) AND (:to IS NULL OR b.entryDate <= :to)")
+    List<Booking> findByRoomIdInWindow(@Param("roomId") Long roomId,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to,
+                                       Sort sort);
+
+    // Server-side cursor for exports: rows arrive in fetch-size chunks instead of one materialized list
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Booking b JOIN FETCH b.room JOIN FETCH b.user " +
+            "WHERE (:from IS NULL OR b.exitDate >= :from) AND (:to IS NULL OR b.entryDate <= :to) " +
+            "ORDER BY b.id")
+    Stream<Booking> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Keyset page on the primary key; callers pass the last id they saw
+    @EntityGraph(attributePaths = {"room", "user"})
+    List<Booking> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Keyset page of a guest's stays touching [from, to] (either bound may be null); served by idx_booking_user_id_id
+    @Query("SELECT new com.nasor.bookingapi.dto.booking.UserBookingDto(b.id, r.id, r.number, b.entryDate, b.exitDate) " +
+            "FROM Booking b JOIN b.room r WHERE b.user.id = :userId AND b.id > :after " +
+            "AND (:from IS NULL OR b.exitDate >= :from) AND (:to IS NULL OR b.entryDate <= :to) " +
+            "ORDER BY b.id")
+    List<UserBookingDto> findUserBookings(@Param("userId") Long userId,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to,
+                                          @Param("after") Long after,
+                                          Limit limit);
+
+    // Date ranges only, grouped by room, to warm and verify the in-memory availability index
+    @Query("SELECT b.id AS id, b.room.id AS roomId, b.entryDate AS entryDate, b.exitDate AS exitDate " +
+            "FROM Booking b ORDER BY b.room.id")
+    Stream<BookingInterval> streamAllIntervals();
+
+    @Query("SELECT b.id AS id, b.room.id AS roomId, b.entryDate AS entryDate, b.exitDate AS exitDate " +
+            "FROM Booking b WHERE b.room.id = :roomId")
+    List<BookingInterval> findIntervalsByRoomId(@Param("roomId") Long roomId);
 }
@@ -0,0 +1,9 @@
+package com.nasor.bookingapi.repository;
+
+import com.nasor.bookingapi.model.RateRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RateRuleRepository extends JpaRepository<RateRule, Long> {
+}
@@ -1,12 +1,43 @@
 package com.nasor.bookingapi.repository;
 
 import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.repository.projection.RoomLabel;
+import com.nasor.bookingapi.repository.projection.RoomPricing;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
     Optional<Room> findByNumber(String number);
+
+    List<Room> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT r.version FROM Room r WHERE r.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT r.id AS id, r.number AS number FROM Room r ORDER BY r.id")
+    List<RoomLabel> findAllLabels();
+
+    @Query("SELECT r.id AS id, r.number AS number, r.type AS type, r.pricePerNight AS pricePerNight FROM Room r " +
+            "WHERE (:type IS NULL OR r.type = :type) ORDER BY r.id")
+    List<RoomPricing> findPricing(@Param("type") RoomType type);
+
+    // Rooms with no overlapping booking, resolved as a single anti-join instead of one overlap query per room
+    @Query("SELECT r FROM Room r WHERE (:type IS NULL OR r.type = :type) " +
+            "AND (:maxPrice IS NULL OR r.pricePerNight <= :maxPrice) " +
+            "AND NOT EXISTS (SELECT 1 FROM Booking b WHERE b.room = r " +
+            "AND b.entryDate <= :exitDate AND b.exitDate >= :entryDate) " +
+            "ORDER BY r.id")
+    List<Room> findAvailableRooms(@Param("entryDate") LocalDate entryDate,
+                                  @Param("exitDate") LocalDate exitDate,
+                                  @Param("type") RoomType type,
+                                  @Param("maxPrice") Double maxPrice);
 }
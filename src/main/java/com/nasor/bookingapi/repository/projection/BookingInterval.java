@@ -0,0 +1,13 @@
+package com.nasor.bookingapi.repository.projection;
+
+import java.time.LocalDate;
+
+public interface BookingInterval {
+    Long getId();
+
+    Long getRoomId();
+
+    LocalDate getEntryDate();
+
+    LocalDate getExitDate();
+}
@@ -0,0 +1,9 @@
+package com.nasor.bookingapi.repository.projection;
+
+public interface BookingVersions {
+    Long getBookingVersion();
+
+    Long getRoomVersion();
+
+    Long getUserVersion();
+}
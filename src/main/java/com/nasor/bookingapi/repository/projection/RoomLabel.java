@@ -0,0 +1,7 @@
+package com.nasor.bookingapi.repository.projection;
+
+public interface RoomLabel {
+    Long getId();
+
+    String getNumber();
+}
@@ -0,0 +1,13 @@
+package com.nasor.bookingapi.repository.projection;
+
+import com.nasor.bookingapi.model.RoomType;
+
+public interface RoomPricing {
+    Long getId();
+
+    String getNumber();
+
+    RoomType getType();
+
+    Double getPricePerNight();
+}
@@ -0,0 +1,358 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import com.nasor.bookingapi.event.BookingSnapshot;
+import com.nasor.bookingapi.repository.BookingRepository;
+import com.nasor.bookingapi.repository.projection.BookingInterval;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Answers room availability from an in-memory {@link RoomIntervalIndex} instead of querying the booking table,
+ * and night-by-night occupancy from a {@link RoomOccupancyIndex}. Both are loaded before the web server starts
+ * and kept in sync from {@link BookingChangedEvent}s once the writing transaction commits. With more than one
+ * application instance, bookings written elsewhere only show up after the next consistency check, which is why
+ * it is on by default, and the index must not be the only guard against double bookings.
+ */
+@Slf4j
+@Service
+public class AvailabilityEngine implements SmartInitializingSingleton {
+    private final BookingRepository bookingRepository;
+    // Deliberately not read-only: read-only transactions may go to a replica (see ReplicaRoutingDataSource), and
+    // loading or repairing the index from rows older than the commits it has already applied would drop bookings
+    private final TransactionTemplate primaryTransaction;
+    private final RoomIntervalIndex index = new RoomIntervalIndex();
+    private final RoomOccupancyIndex occupancy = new RoomOccupancyIndex();
+    // Tentative holds, keyed by HoldService's in-memory hold keys; never persisted through this class
+    private final RoomIntervalIndex holds = new RoomIntervalIndex();
+    // Booking writes of this instance per room, from their event until their transaction completes
+    private final ConcurrentMap<Long, RoomWrites> roomWrites = new ConcurrentHashMap<>();
+    // Committed writes update the indexes under the read lock; a repair replaces a room under the write lock
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private final boolean shadowReads;
+    private final boolean consistencyCheckEnabled;
+
+    public AvailabilityEngine(BookingRepository bookingRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${booking.availability.shadow-reads:false}") boolean shadowReads,
+                              @Value("${booking.availability.consistency-check.enabled:true}") boolean consistencyCheckEnabled) {
+        this.bookingRepository = bookingRepository;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.shadowReads = shadowReads;
+        this.consistencyCheckEnabled = consistencyCheckEnabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        index.clear();
+        occupancy.clear();
+        loadFromDatabase(index, occupancy);
+        log.info("Availability index warmed with {} rooms", index.roomCount());
+    }
+
+    public boolean isRoomAvailable(Long roomId, LocalDate entryDate, LocalDate exitDate) {
+        return isRoomAvailable(roomId, entryDate, exitDate, RoomIntervalIndex.NO_BOOKING);
+    }
+
+    /**
+     * Bookings and active holds both block, except the hold identified by {@code holdKeyToIgnore}, which is
+     * how a hold gets confirmed into the booking it was reserving.
+     */
+    public boolean isRoomAvailable(Long roomId, LocalDate entryDate, LocalDate exitDate, long holdKeyToIgnore) {
+        boolean available = index.isAvailable(roomId, entryDate, exitDate);
+        if (shadowReads) {
+            boolean expected = bookingRepository.findOverlappingBookings(roomId, entryDate, exitDate).isEmpty();
+            reportShadowMismatch(roomId, entryDate, exitDate, available, expected);
+        }
+        return available && holds.isAvailable(roomId, entryDate, exitDate, holdKeyToIgnore);
+    }
+
+    public boolean isRoomAvailableForUpdate(Long roomId, LocalDate entryDate, LocalDate exitDate, Long bookingIdToExclude) {
+        boolean available = index.isAvailable(roomId, entryDate, exitDate, bookingIdToExclude);
+        if (shadowReads) {
+            boolean expected = bookingRepository
+                    .findOverlappingBookingsExcludingCurrent(roomId, entryDate, exitDate, bookingIdToExclude)
+                    .isEmpty();
+            reportShadowMismatch(roomId, entryDate, exitDate, available, expected);
+        }
+        return available && holds.isAvailable(roomId, entryDate, exitDate);
+    }
+
+    public void putHold(long roomId, long holdKey, LocalDate entryDate, LocalDate exitDate) {
+        holds.put(roomId, holdKey, entryDate, exitDate);
+    }
+
+    public void removeHold(long roomId, long holdKey) {
+        holds.remove(roomId, holdKey);
+    }
+
+    public boolean isHeld(Long roomId, LocalDate entryDate, LocalDate exitDate) {
+        return !holds.isAvailable(roomId, entryDate, exitDate);
+    }
+
+    /**
+     * Marks the rooms of a booking write as in flight from the moment it is published until its transaction
+     * completes, which is after {@link #onBookingChanged} has applied it. A repair leaves such rooms alone.
+     */
+    @EventListener
+    public void onBookingChanging(BookingChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<RoomWrites> writes = new ArrayList<>(2);
+        for (BookingSnapshot snapshot : new BookingSnapshot[]{event.before(), event.after()}) {
+            if (snapshot != null) {
+                RoomWrites room = roomWrites.computeIfAbsent(snapshot.roomId(), id -> new RoomWrites());
+                if (!writes.contains(room)) {
+                    room.begin();
+                    writes.add(room);
+                }
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                writes.forEach(RoomWrites::end);
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingSnapshot before = event.before();
+        BookingSnapshot after = event.after();
+        indexLock.readLock().lock();
+        try {
+            if (before != null) {
+                index.remove(before.roomId(), before.id());
+                occupancy.release(before.roomId(),
+                        RoomIntervalIndex.toDay(before.entryDate()), RoomIntervalIndex.toDay(before.exitDate()));
+            }
+            if (after != null) {
+                index.put(after.roomId(), after.id(), after.entryDate(), after.exitDate());
+                occupancy.occupy(after.roomId(),
+                        RoomIntervalIndex.toDay(after.entryDate()), RoomIntervalIndex.toDay(after.exitDate()));
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fills {@code out} with '1' for each occupied night and '0' for each free night starting at {@code from}.
+     */
+    public void writeOccupancy(Long roomId, LocalDate from, char[] out) {
+        occupancy.writeNights(roomId, RoomIntervalIndex.toDay(from), out);
+    }
+
+    public int countBookingsStartingOnOrAfter(Long roomId, LocalDate date) {
+        return index.countStartingOnOrAfter(roomId, RoomIntervalIndex.toDay(date));
+    }
+
+    public int countOccupiedNights(Long roomId, LocalDate from, LocalDate toExclusive) {
+        return occupancy.countNights(roomId, RoomIntervalIndex.toDay(from), RoomIntervalIndex.toDay(toExclusive));
+    }
+
+    /**
+     * Adds one to {@code out[i]} for every room of {@code roomIds} booked on the night of {@code from} plus i days.
+     */
+    public void countOccupiedRooms(Iterable<Long> roomIds, LocalDate from, int[] out) {
+        int fromDay = RoomIntervalIndex.toDay(from);
+        for (Long roomId : roomIds) {
+            for (int i = 0; i < out.length; i++) {
+                if (occupancy.isOccupied(roomId, fromDay + i)) {
+                    out[i]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * First date, from {@code from} on, that a one-night stay can start on. Bookings are closed ranges, so a
+     * stay also blocks its exit day: the date needs a free night before it as well as its own and the next one.
+     */
+    public LocalDate nextBookableDate(Long roomId, LocalDate from) {
+        return LocalDate.ofEpochDay(occupancy.nextFreeRun(roomId, RoomIntervalIndex.toDay(from) - 1, 3) + 1L);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.availability.consistency-check.interval:PT10M}",
+            initialDelayString = "${booking.availability.consistency-check.interval:PT10M}")
+    public void scheduledConsistencyCheck() {
+        if (consistencyCheckEnabled) {
+            checkConsistency(true);
+        }
+    }
+
+    /**
+     * Compares every room in the index against the booking table. Writes committing while the check runs can
+     * show up as false positives. With {@code repair} the divergent rooms are reloaded, except those this
+     * instance was writing to while the check ran; they are left for the next check.
+     */
+    public ConsistencyReport checkConsistency(boolean repair) {
+        RoomIntervalIndex database = new RoomIntervalIndex();
+        loadFromDatabase(database, null);
+
+        Set<Long> roomIds = new HashSet<>(database.roomIds());
+        roomIds.addAll(index.roomIds());
+
+        List<Long> divergentRooms = new ArrayList<>();
+        for (Long roomId : roomIds) {
+            if (!index.sameRoom(roomId, database)) {
+                divergentRooms.add(roomId);
+            }
+        }
+
+        List<Long> repairedRooms = new ArrayList<>();
+        if (!divergentRooms.isEmpty()) {
+            log.warn("Availability index diverges from the database for rooms {}", divergentRooms);
+            if (repair) {
+                for (Long roomId : divergentRooms) {
+                    if (reloadRoom(roomId)) {
+                        repairedRooms.add(roomId);
+                    }
+                }
+            }
+        }
+        return new ConsistencyReport(roomIds.size(), divergentRooms, repairedRooms);
+    }
+
+    /**
+     * Replaces the room with its rows on the primary, unless a booking write of this instance for the room was
+     * in flight when the query started or began before the replacement: its rows may be missing from the query
+     * or already applied to the index, and replacing would drop or resurrect a booking.
+     */
+    private boolean reloadRoom(Long roomId) {
+        RoomWrites writes = roomWrites.computeIfAbsent(roomId, id -> new RoomWrites());
+        long started = writes.started();
+        if (writes.inFlight()) {
+            return false;
+        }
+        List<BookingInterval> intervals = primaryTransaction.execute(status ->
+                bookingRepository.findIntervalsByRoomId(roomId));
+        RoomBatch batch = new RoomBatch(roomId);
+        if (intervals != null) {
+            intervals.forEach(batch::add);
+        }
+        indexLock.writeLock().lock();
+        try {
+            if (writes.started() != started) {
+                return false;
+            }
+            batch.flushInto(index, occupancy);
+            return true;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private void loadFromDatabase(RoomIntervalIndex loaded, RoomOccupancyIndex loadedOccupancy) {
+        primaryTransaction.executeWithoutResult(status -> {
+            try (Stream<BookingInterval> intervals = bookingRepository.streamAllIntervals()) {
+                RoomBatch[] current = {null};
+                intervals.forEach(interval -> {
+                    if (current[0] == null || current[0].roomId != interval.getRoomId()) {
+                        if (current[0] != null) {
+                            current[0].flushInto(loaded, loadedOccupancy);
+                        }
+                        current[0] = new RoomBatch(interval.getRoomId());
+                    }
+                    current[0].add(interval);
+                });
+                if (current[0] != null) {
+                    current[0].flushInto(loaded, loadedOccupancy);
+                }
+            }
+        });
+    }
+
+    private void reportShadowMismatch(Long roomId, LocalDate entryDate, LocalDate exitDate,
+                                      boolean indexed, boolean expected) {
+        if (indexed != expected) {
+            log.warn("Availability index answered {} but the database answered {} for room {} from {} to {}",
+                    indexed, expected, roomId, entryDate, exitDate);
+        }
+    }
+
+    public record ConsistencyReport(int roomsChecked, List<Long> divergentRoomIds, List<Long> repairedRoomIds) {
+    }
+
+    private static final class RoomWrites {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong started = new AtomicLong();
+
+        // inFlight first: a repair reads started before inFlight, so it sees at least one of the two move
+        void begin() {
+            inFlight.incrementAndGet();
+            started.incrementAndGet();
+        }
+
+        void end() {
+            inFlight.decrementAndGet();
+        }
+
+        boolean inFlight() {
+            return inFlight.get() > 0;
+        }
+
+        long started() {
+            return started.get();
+        }
+    }
+
+    private static final class RoomBatch {
+        private final long roomId;
+        private long[] ids = new long[8];
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int size;
+
+        RoomBatch(long roomId) {
+            this.roomId = roomId;
+        }
+
+        void add(BookingInterval interval) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            ids[size] = interval.getId();
+            starts[size] = RoomIntervalIndex.toDay(interval.getEntryDate());
+            ends[size] = RoomIntervalIndex.toDay(interval.getExitDate());
+            size++;
+        }
+
+        void flushInto(RoomIntervalIndex target, RoomOccupancyIndex targetOccupancy) {
+            int[] entryDays = Arrays.copyOf(starts, size);
+            int[] exitDays = Arrays.copyOf(ends, size);
+            target.replaceRoom(roomId, Arrays.copyOf(ids, size), entryDays, exitDays);
+            if (targetOccupancy != null) {
+                targetOccupancy.replaceRoom(roomId, entryDays, exitDays);
+            }
+        }
+    }
+}
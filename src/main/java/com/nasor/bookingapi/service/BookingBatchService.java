@@ -0,0 +1,219 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.config.ReplicaRoutingDataSource;
+import com.nasor.bookingapi.dto.booking.BookingBatchItemResult;
+import com.nasor.bookingapi.dto.booking.BookingBatchItemStatus;
+import com.nasor.bookingapi.dto.booking.BookingBatchMode;
+import com.nasor.bookingapi.dto.booking.BookingBatchRequest;
+import com.nasor.bookingapi.dto.booking.BookingBatchResult;
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import com.nasor.bookingapi.event.BookingSnapshot;
+import com.nasor.bookingapi.exception.RoomNotAvailableException;
+import com.nasor.bookingapi.mapper.BookingDtoMapper;
+import com.nasor.bookingapi.model.Booking;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.User;
+import com.nasor.bookingapi.repository.BookingRepository;
+import com.nasor.bookingapi.repository.RoomRepository;
+import com.nasor.bookingapi.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many bookings in one transaction: one query for the rooms, one for the users, an in-memory
+ * overlap pass (against the availability index and within the batch) and a JDBC-batched insert. The batch
+ * holds the {@link RoomWriteLocks} of all its rooms, so single writes to those rooms wait for it and the
+ * overlap pass is exact for this instance.
+ */
+@Service
+@Timed(BookingMetrics.SERVICE_TIMER)
+public class BookingBatchService {
+    private final BookingRepository bookingRepository;
+    private final RoomRepository roomRepository;
+    private final UserRepository userRepository;
+    private final BookingDtoMapper bookingDtoMapper;
+    private final AvailabilityEngine availabilityEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingMetrics bookingMetrics;
+    private final RoomWriteLocks roomWriteLocks;
+    private final TransactionTemplate transaction;
+
+    public BookingBatchService(BookingRepository bookingRepository, RoomRepository roomRepository, UserRepository userRepository,
+                               BookingDtoMapper bookingDtoMapper, AvailabilityEngine availabilityEngine,
+                               ApplicationEventPublisher eventPublisher, BookingMetrics bookingMetrics,
+                               RoomWriteLocks roomWriteLocks, PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.roomRepository = roomRepository;
+        this.userRepository = userRepository;
+        this.bookingDtoMapper = bookingDtoMapper;
+        this.availabilityEngine = availabilityEngine;
+        this.eventPublisher = eventPublisher;
+        this.bookingMetrics = bookingMetrics;
+        this.roomWriteLocks = roomWriteLocks;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Each item is recorded in {@value BookingMetrics#REQUEST_TIMER} as a batch_create with its own outcome.
+     * Conflicts that only the database can see (another instance taking the same dates) reject the whole
+     * batch with {@link RoomNotAvailableException} in ALL_OR_NOTHING mode; in BEST_EFFORT mode the items are
+     * then inserted one transaction each, and only those that conflict fail.
+     */
+    public BookingBatchResult create(BookingBatchRequest request) {
+        List<BookingRequestRegistration> items = request.bookings();
+        List<Long> roomIds = items.stream().map(BookingRequestRegistration::roomId).distinct().toList();
+        return bookingMetrics.recordBatch("batch_create", items.size(),
+                () -> roomWriteLocks.withRoomLocks(roomIds, () -> createLocked(request)),
+                result -> result.items().stream()
+                        .map(item -> item.status().name().toLowerCase(Locale.ROOT))
+                        .toList());
+    }
+
+    private BookingBatchResult createLocked(BookingBatchRequest request) {
+        try {
+            return transaction.execute(status -> createItems(request, this::insertAll));
+        } catch (RoomNotAvailableException e) {
+            if (request.mode() != BookingBatchMode.BEST_EFFORT) {
+                throw e;
+            }
+            // No transaction around the items here, so the lookups ask the primary as the first attempt did
+            return ReplicaRoutingDataSource.readFromPrimary(() -> createItems(request, this::insertEach));
+        }
+    }
+
+    private BookingBatchResult createItems(BookingBatchRequest request, Function<List<Booking>, boolean[]> insert) {
+        List<BookingRequestRegistration> items = request.bookings();
+
+        Map<Long, Room> rooms = roomRepository
+                .findAllById(items.stream().map(BookingRequestRegistration::roomId).distinct().toList())
+                .stream().collect(Collectors.toMap(Room::getId, Function.identity()));
+        Map<Long, User> users = userRepository
+                .findAllById(items.stream().map(BookingRequestRegistration::userId).distinct().toList())
+                .stream().collect(Collectors.toMap(User::getId, Function.identity()));
+
+        BookingBatchItemResult[] results = new BookingBatchItemResult[items.size()];
+        Map<Long, List<BookingRequestRegistration>> acceptedByRoom = new HashMap<>();
+        List<Integer> accepted = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            BookingRequestRegistration item = items.get(i);
+            if (item.exitDate().isBefore(item.entryDate()) || item.exitDate().isEqual(item.entryDate())) {
+                results[i] = failure(i, BookingBatchItemStatus.INVALID_DATES, "Invalid dates");
+            } else if (!rooms.containsKey(item.roomId())) {
+                results[i] = failure(i, BookingBatchItemStatus.NOT_FOUND, "Room not found");
+            } else if (!users.containsKey(item.userId())) {
+                results[i] = failure(i, BookingBatchItemStatus.NOT_FOUND, "User not found");
+            } else if (!availabilityEngine.isRoomAvailable(item.roomId(), item.entryDate(), item.exitDate())
+                    || overlapsEarlierItem(acceptedByRoom.get(item.roomId()), item)) {
+                results[i] = conflict(i);
+            } else {
+                acceptedByRoom.computeIfAbsent(item.roomId(), id -> new ArrayList<>()).add(item);
+                accepted.add(i);
+            }
+        }
+
+        boolean anyFailed = accepted.size() < items.size();
+        if (request.mode() == BookingBatchMode.ALL_OR_NOTHING && anyFailed) {
+            for (int i : accepted) {
+                results[i] = failure(i, BookingBatchItemStatus.SKIPPED, "Batch rejected");
+            }
+            return new BookingBatchResult(request.mode(), 0, items.size(), List.of(results));
+        }
+
+        List<Booking> bookings = new ArrayList<>(accepted.size());
+        for (int i : accepted) {
+            BookingRequestRegistration item = items.get(i);
+            Booking booking = new Booking();
+            booking.setRoom(rooms.get(item.roomId()));
+            booking.setUser(users.get(item.userId()));
+            booking.setEntryDate(item.entryDate());
+            booking.setExitDate(item.exitDate());
+            bookings.add(booking);
+        }
+
+        boolean[] inserted = insert.apply(bookings);
+        int created = 0;
+        for (int b = 0; b < bookings.size(); b++) {
+            int i = accepted.get(b);
+            if (inserted[b]) {
+                results[i] = new BookingBatchItemResult(i, BookingBatchItemStatus.CREATED,
+                        bookingDtoMapper.apply(bookings.get(b)), null);
+                created++;
+            } else {
+                results[i] = conflict(i);
+            }
+        }
+        return new BookingBatchResult(request.mode(), created, items.size() - created, List.of(results));
+    }
+
+    // Inside the batch's transaction; one conflict rolls it back
+    private boolean[] insertAll(List<Booking> bookings) {
+        try {
+            bookingRepository.saveAll(bookings);
+            bookingRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (BookingService.isOverlapViolation(e)) {
+                throw new RoomNotAvailableException("Invalid dates");
+            }
+            throw e;
+        }
+        bookings.forEach(booking -> eventPublisher.publishEvent(BookingChangedEvent.created(BookingSnapshot.of(booking))));
+        boolean[] inserted = new boolean[bookings.size()];
+        Arrays.fill(inserted, true);
+        return inserted;
+    }
+
+    private boolean[] insertEach(List<Booking> bookings) {
+        boolean[] inserted = new boolean[bookings.size()];
+        for (int b = 0; b < bookings.size(); b++) {
+            Booking booking = bookings.get(b);
+            try {
+                transaction.executeWithoutResult(status -> {
+                    bookingRepository.saveAndFlush(booking);
+                    eventPublisher.publishEvent(BookingChangedEvent.created(BookingSnapshot.of(booking)));
+                });
+                inserted[b] = true;
+            } catch (DataIntegrityViolationException e) {
+                if (!BookingService.isOverlapViolation(e)) {
+                    throw e;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    // Closed ranges, like the availability index
+    private static boolean overlapsEarlierItem(List<BookingRequestRegistration> sameRoom, BookingRequestRegistration item) {
+        if (sameRoom == null) {
+            return false;
+        }
+        for (BookingRequestRegistration other : sameRoom) {
+            if (!other.entryDate().isAfter(item.exitDate()) && !other.exitDate().isBefore(item.entryDate())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BookingBatchItemResult conflict(int index) {
+        return failure(index, BookingBatchItemStatus.CONFLICT, "Room not available for the requested dates");
+    }
+
+    private static BookingBatchItemResult failure(int index, BookingBatchItemStatus status, String error) {
+        return new BookingBatchItemResult(index, status, null, error);
+    }
+}
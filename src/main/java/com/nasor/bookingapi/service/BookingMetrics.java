@@ -0,0 +1,96 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.exception.PreconditionFailedException;
+import com.nasor.bookingapi.exception.ResourceNotFound;
+import com.nasor.bookingapi.exception.RoomNotAvailableException;
+import com.nasor.bookingapi.exception.ServiceOverloadedException;
+import com.nasor.bookingapi.exception.VersionConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Times booking writes under {@value #REQUEST_TIMER}, tagged with the operation and its outcome (created,
+ * updated, deleted, conflict, not_found, invalid_dates, precondition_failed, version_conflict, overloaded, skipped
+ * or error).
+ * The count of each outcome series doubles as the rate of that outcome, e.g. 409 conflicts.
+ */
+@Component
+public class BookingMetrics {
+    public static final String SERVICE_TIMER = "booking.service.invocations";
+    public static final String REQUEST_TIMER = "booking.requests";
+
+    private final MeterRegistry registry;
+
+    public BookingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T record(String operation, String successOutcome, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = successOutcome;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            sample.stop(registry.timer(REQUEST_TIMER, "operation", operation, "outcome", outcome));
+        }
+    }
+
+    /**
+     * Times a batch of {@code size} writes once per item, tagged with that item's outcome from
+     * {@code itemOutcomes}, or with the batch's own outcome for every item when the whole batch fails.
+     */
+    public <T> T recordBatch(String operation, int size, Supplier<T> action, Function<T, List<String>> itemOutcomes) {
+        long start = registry.config().clock().monotonicTime();
+        List<String> outcomes = Collections.nCopies(size, "error");
+        try {
+            T result = action.get();
+            outcomes = itemOutcomes.apply(result);
+            return result;
+        } catch (RuntimeException e) {
+            outcomes = Collections.nCopies(size, outcomeOf(e));
+            throw e;
+        } finally {
+            long elapsed = registry.config().clock().monotonicTime() - start;
+            for (String outcome : outcomes) {
+                registry.timer(REQUEST_TIMER, "operation", operation, "outcome", outcome)
+                        .record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    public void record(String operation, String successOutcome, Runnable action) {
+        record(operation, successOutcome, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static String outcomeOf(RuntimeException e) {
+        if (e instanceof RoomNotAvailableException) {
+            return "conflict";
+        } else if (e instanceof VersionConflictException) {
+            return "version_conflict";
+        } else if (e instanceof PreconditionFailedException) {
+            return "precondition_failed";
+        } else if (e instanceof ResourceNotFound) {
+            return "not_found";
+        } else if (e instanceof IllegalArgumentException) {
+            return "invalid_dates";
+        } else if (e instanceof ServiceOverloadedException) {
+            return "overloaded";
+        }
+        return "error";
+    }
+}
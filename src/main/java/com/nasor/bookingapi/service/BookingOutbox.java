@@ -0,0 +1,244 @@
+package com.nasor.bookingapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nasor.bookingapi.dto.booking.BookingChangeDto;
+import com.nasor.bookingapi.event.BookingChangeSink;
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for booking changes. Every {@link BookingChangedEvent} is inserted into booking_outbox by
+ * a synchronous listener, so the row commits or rolls back with the booking. A scheduled relay hands unpublished
+ * rows to the {@link BookingChangeSink} in batches and numbers them; relays on different instances take turns
+ * through a transaction-scoped advisory lock, which is what makes sequence order match commit order.
+ * Consumers can also read the numbered rows with {@link #awaitChanges}, which long-polls until a relay on any
+ * instance publishes something newer.
+ */
+@Slf4j
+@Service
+public class BookingOutbox {
+    private static final long RELAY_LOCK = 0x626f6f6b696e67L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ObjectMapper objectMapper;
+    private final BookingChangeSink sink;
+    private final int batchSize;
+    private final Duration retention;
+
+    private final AtomicLong latestSequence = new AtomicLong();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    public BookingOutbox(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                         BookingChangeSink sink,
+                         @Value("${booking.outbox.batch-size:500}") int batchSize,
+                         @Value("${booking.outbox.retention:P7D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Booking changes must be published inside the writing transaction");
+        }
+        Long bookingId = event.after() != null ? event.after().id() : event.before().id();
+        jdbcTemplate.update("INSERT INTO booking_outbox (booking_id, change_type, payload) VALUES (?, ?, ?)",
+                bookingId, event.type().name(), toJson(event));
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.relay-interval:PT1S}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = transaction.execute(status -> relayBatch());
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Relaying booking changes failed, retrying on the next run", e);
+        }
+        if (!waiters.isEmpty()) {
+            Long latest = jdbcTemplate.queryForObject("SELECT max(sequence) FROM booking_outbox", Long.class);
+            if (latest != null) {
+                wakeWaiters(latest);
+            }
+        }
+    }
+
+    /**
+     * Changes numbered after {@code since}, in sequence order.
+     */
+    public List<BookingChangeDto> findChanges(long since, int limit) {
+        return jdbcTemplate.query("SELECT sequence, change_type, booking_id, payload, created_at FROM booking_outbox " +
+                        "WHERE sequence > ? ORDER BY sequence LIMIT ?",
+                this::toChange, since, limit);
+    }
+
+    /**
+     * Completes with the changes after {@code since} as soon as there are any, or with an empty list once
+     * {@code wait} has passed.
+     */
+    public CompletableFuture<List<BookingChangeDto>> awaitChanges(long since, int limit, Duration wait) {
+        List<BookingChangeDto> changes = findChanges(since, limit);
+        if (!changes.isEmpty() || wait.isZero()) {
+            return CompletableFuture.completedFuture(changes);
+        }
+
+        Waiter waiter = new Waiter(since, limit, new CompletableFuture<>());
+        waiters.add(waiter);
+        waiter.result()
+                .completeOnTimeout(List.of(), wait.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> waiters.remove(waiter));
+        // A relay that committed after the query above but before the waiter was queued would not have woken it
+        if (latestSequence.get() > since) {
+            wakeWaiters(latestSequence.get());
+        }
+        return waiter.result();
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.purge-interval:PT1H}")
+    public void purgePublished() {
+        int purged = jdbcTemplate.update("DELETE FROM booking_outbox WHERE published_at < ?",
+                Timestamp.from(Instant.now().minus(retention)));
+        if (purged > 0) {
+            log.info("Purged {} published booking changes", purged);
+        }
+    }
+
+    private int relayBatch() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK))) {
+            return 0;
+        }
+        List<Unpublished> batch = jdbcTemplate.query(
+                "SELECT id, booking_id, payload, created_at FROM booking_outbox WHERE sequence IS NULL ORDER BY id LIMIT ?",
+                (rs, row) -> new Unpublished(rs.getLong("id"), rs.getLong("booking_id"),
+                        fromJson(rs.getString("payload")), rs.getTimestamp("created_at").toInstant()),
+                batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Only the lock holder draws from the sequence, so the batch gets a contiguous range
+        long first = jdbcTemplate.queryForObject("SELECT nextval('booking_outbox_sequence')", Long.class);
+        if (batch.size() > 1) {
+            jdbcTemplate.queryForObject("SELECT setval('booking_outbox_sequence', ?)", Long.class, first + batch.size() - 1);
+        }
+        List<BookingChangeDto> changes = new ArrayList<>(batch.size());
+        List<Object[]> numbering = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Unpublished row = batch.get(i);
+            changes.add(new BookingChangeDto(first + i, row.event().type(), row.bookingId(),
+                    row.event().before(), row.event().after(), row.createdAt()));
+            numbering.add(new Object[] {first + i, row.id()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE booking_outbox SET sequence = ?, published_at = now() WHERE id = ?", numbering);
+
+        try {
+            sink.publish(changes);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Booking change sink failed", e);
+        }
+        return batch.size();
+    }
+
+    // Runs on the relay thread, so all due waiters share one query. Waiters only queue once they have caught up,
+    // so their cursors sit close together and the range read stays small.
+    private void wakeWaiters(long latest) {
+        latestSequence.accumulateAndGet(latest, Math::max);
+        List<Waiter> due = new ArrayList<>();
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (Waiter waiter : waiters) {
+            if (waiter.since() < latest && !waiter.result().isDone()) {
+                due.add(waiter);
+                from = Math.min(from, waiter.since());
+                to = Math.max(to, Math.min(latest, waiter.since() + waiter.limit()));
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        List<BookingChangeDto> changes;
+        try {
+            changes = jdbcTemplate.query("SELECT sequence, change_type, booking_id, payload, created_at FROM booking_outbox " +
+                    "WHERE sequence > ? AND sequence <= ? ORDER BY sequence", this::toChange, from, to);
+        } catch (RuntimeException e) {
+            due.forEach(waiter -> waiter.result().completeExceptionally(e));
+            return;
+        }
+        for (Waiter waiter : due) {
+            List<BookingChangeDto> slice = slice(changes, waiter.since(), waiter.limit());
+            try {
+                // Empty only when a rolled-back relay left a gap in the sequence wider than the waiter's limit
+                waiter.result().complete(slice.isEmpty() ? findChanges(waiter.since(), waiter.limit()) : slice);
+            } catch (RuntimeException e) {
+                waiter.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private static List<BookingChangeDto> slice(List<BookingChangeDto> changes, long since, int limit) {
+        int first = 0;
+        while (first < changes.size() && changes.get(first).sequence() <= since) {
+            first++;
+        }
+        return List.copyOf(changes.subList(first, Math.min(changes.size(), first + limit)));
+    }
+
+    private BookingChangeDto toChange(ResultSet rs, int row) throws SQLException {
+        BookingChangedEvent event = fromJson(rs.getString("payload"));
+        return new BookingChangeDto(rs.getLong("sequence"), event.type(), rs.getLong("booking_id"),
+                event.before(), event.after(), rs.getTimestamp("created_at").toInstant());
+    }
+
+    private String toJson(BookingChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BookingChangedEvent fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, BookingChangedEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Unpublished(long id, long bookingId, BookingChangedEvent event, Instant createdAt) {
+    }
+
+    private record Waiter(long since, int limit, CompletableFuture<List<BookingChangeDto>> result) {
+    }
+}
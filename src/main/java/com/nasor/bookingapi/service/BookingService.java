@@ -3,57 +3,167 @@ package com.nasor.bookingapi.service;
 import com.nasor.bookingapi.dto.booking.BookingDto;
 import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
 import com.nasor.bookingapi.dto.booking.BookingRequestUpdating;
+import com.nasor.bookingapi.dto.booking.UserBookingDto;
+import com.nasor.bookingapi.dto.page.CursorPage;
+import com.nasor.bookingapi.dto.room.RoomBookingSummaryDto;
+import com.nasor.bookingapi.dto.room.RoomDto;
+import com.nasor.bookingapi.dto.user.UserDto;
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import com.nasor.bookingapi.event.BookingSnapshot;
 import com.nasor.bookingapi.exception.ResourceNotFound;
 import com.nasor.bookingapi.exception.RoomNotAvailableException;
 import com.nasor.bookingapi.mapper.BookingDtoMapper;
 import com.nasor.bookingapi.model.Booking;
-import com.nasor.bookingapi.model.Room;
-import com.nasor.bookingapi.model.User;
 import com.nasor.bookingapi.repository.BookingRepository;
 import com.nasor.bookingapi.repository.RoomRepository;
 import com.nasor.bookingapi.repository.UserRepository;
+import com.nasor.bookingapi.repository.projection.BookingVersions;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(BookingMetrics.SERVICE_TIMER)
 public class BookingService {
+    private static final String OVERLAP_CONSTRAINT = "booking_no_overlap";
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    // Detach exported rows in chunks so the persistence context does not grow with the export
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+
     private final BookingRepository bookingRepository;
     private final BookingDtoMapper bookingDtoMapper;
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
+    private final RoomService roomService;
+    private final UserService userService;
+    private final AvailabilityEngine availabilityEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final BookingMetrics bookingMetrics;
+    private final RoomWriteLocks roomWriteLocks;
+    private final TransactionTemplate transaction;
 
-    public BookingService(BookingRepository bookingRepository, BookingDtoMapper bookingDtoMapper, RoomRepository roomRepository, UserRepository userRepository) {
+    public BookingService(BookingRepository bookingRepository, BookingDtoMapper bookingDtoMapper, RoomRepository roomRepository, UserRepository userRepository,
+                          RoomService roomService, UserService userService, AvailabilityEngine availabilityEngine, ApplicationEventPublisher eventPublisher, EntityManager entityManager,
+                          BookingMetrics bookingMetrics, RoomWriteLocks roomWriteLocks, PlatformTransactionManager transactionManager) {
         this.bookingRepository = bookingRepository;
         this.bookingDtoMapper = bookingDtoMapper;
         this.roomRepository = roomRepository;
         this.userRepository = userRepository;
+        this.roomService = roomService;
+        this.userService = userService;
+        this.availabilityEngine = availabilityEngine;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.bookingMetrics = bookingMetrics;
+        this.roomWriteLocks = roomWriteLocks;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * A page of bookings in id order, as entities with room and user loaded, for
+     * {@link com.nasor.bookingapi.mapper.BookingJsonWriter} to write without mapping them to DTOs.
+     */
     @Transactional(readOnly = true)
-    public List<BookingDto> findAllBookings() {
-        return bookingRepository
-                .findAll().stream()
-                .map(bookingDtoMapper)
-                .collect(Collectors.toList());
+    public CursorPage<Booking> findAllBookingEntities(Long after, int limit) {
+        List<Booking> bookings = bookingRepository
+                .findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), Limit.of(limit + 1));
+        return CursorPage.of(bookings, limit, Booking::getId, Function.identity());
+    }
+
+    /**
+     * Streams every booking whose stay touches [from, to] (either bound may be null) to {@code sink},
+     * in id order, without holding more than one fetch-size chunk in memory.
+     *
+     * @return number of exported bookings
+     */
+    @Transactional(readOnly = true)
+    public long exportBookings(LocalDate from, LocalDate to, Consumer<BookingDto> sink) {
+        long exported = 0;
+        try (Stream<Booking> bookings = bookingRepository.streamForExport(from, to)) {
+            for (Booking booking : (Iterable<Booking>) bookings::iterator) {
+                sink.accept(bookingDtoMapper.apply(booking));
+                if (++exported % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return exported;
     }
 
+    /**
+     * Bookings of a room whose stay touches [from, to] (either bound may be null), ordered by entry date.
+     */
     @Transactional(readOnly = true)
-    public List<BookingDto> findBookingsByRoom(Long roomId) {
-        if (bookingRepository.findById(roomId).isEmpty()) {
+    public List<BookingDto> findBookingsByRoom(Long roomId, LocalDate from, LocalDate to, Sort.Direction order) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid dates");
+        }
+        if (!roomRepository.existsById(roomId)) {
             throw new ResourceNotFound("Room not found");
         }
 
-        return bookingRepository.findAllByRoomId(roomId)
+        return bookingRepository.findByRoomIdInWindow(roomId, from, to, Sort.by(order, "entryDate", "id"))
                 .stream()
                 .map(bookingDtoMapper)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * A guest's bookings whose stay touches [from, to] (either bound may be null), one keyset page at a time.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserBookingDto> findBookingsByUser(Long userId, LocalDate from, LocalDate to, Long after, int limit) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid dates");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFound("User not found");
+        }
+
+        List<UserBookingDto> bookings = bookingRepository
+                .findUserBookings(userId, from, to, CursorPage.startAfter(after), Limit.of(limit + 1));
+        return CursorPage.of(bookings, limit, UserBookingDto::id, Function.identity());
+    }
+
+    /**
+     * Read from the in-memory indexes, which are updated on every booking change, so history is never rescanned.
+     */
+    public RoomBookingSummaryDto findRoomSummary(Long roomId) {
+        RoomDto room = roomService.findById(roomId);
+        LocalDate today = LocalDate.now();
+        LocalDate monthStart = today.withDayOfMonth(1);
+
+        return new RoomBookingSummaryDto(
+                room.id(),
+                availabilityEngine.countBookingsStartingOnOrAfter(room.id(), today),
+                availabilityEngine.countOccupiedNights(room.id(), monthStart, monthStart.plusMonths(1)),
+                availabilityEngine.nextBookableDate(room.id(), today));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<BookingVersions> findBookingVersions(Long bookingId) {
+        return bookingRepository.findVersionsById(bookingId);
+    }
+
     @Transactional(readOnly = true)
     public BookingDto findBookingById(Long bookingId) {
         Optional<Booking> booking = bookingRepository.findById(bookingId);
@@ -63,93 +173,140 @@ public class BookingService {
         return bookingDtoMapper.apply(booking.get());
     }
 
-    @Transactional(readOnly = true)
     public boolean isRoomAvailable(Long roomId, LocalDate entryDate, LocalDate exitDate) {
-        List<Booking> overlappingBookings = bookingRepository.findOverlappingBookings(roomId, entryDate, exitDate);
-        return overlappingBookings.isEmpty();
+        return availabilityEngine.isRoomAvailable(roomId, entryDate, exitDate);
     }
 
-    @Transactional(readOnly = true)
     public boolean isRoomAvailableForUpdate(Long roomId, LocalDate entryDate, LocalDate exitDate, Long bookingIdToExclude) {
-        List<Booking> bookings = bookingRepository.findOverlappingBookingsExcludingCurrent(roomId, entryDate, exitDate, bookingIdToExclude);
-
-        return bookings.isEmpty();
+        return availabilityEngine.isRoomAvailableForUpdate(roomId, entryDate, exitDate, bookingIdToExclude);
     }
 
-    @Transactional
+    /**
+     * Writes to the same room queue on {@link RoomWriteLocks} before their transaction starts.
+     */
     public BookingDto create(BookingRequestRegistration request) {
+        return bookingMetrics.record("create", "created", () -> roomWriteLocks.withRoomLock(request.roomId(),
+                () -> transaction.execute(status -> createBooking(request, RoomIntervalIndex.NO_BOOKING))));
+    }
+
+    /**
+     * Creates the booking a hold was reserving; the hold itself does not block it.
+     */
+    public BookingDto createFromHold(BookingRequestRegistration request, long holdKey) {
+        return bookingMetrics.record("create", "created", () -> roomWriteLocks.withRoomLock(request.roomId(),
+                () -> transaction.execute(status -> createBooking(request, holdKey))));
+    }
+
+    /**
+     * Locks the room the booking moves to, like {@link #create}.
+     *
+     * @param expectedVersion booking version from the client's If-Match, or null to skip the precondition
+     */
+    public BookingDto update(Long id, BookingRequestUpdating requestUpdating, Long expectedVersion) {
+        return bookingMetrics.record("update", "updated", () -> roomWriteLocks.withRoomLock(requestUpdating.roomId(),
+                () -> transaction.execute(status -> updateBooking(id, requestUpdating, expectedVersion))));
+    }
+
+    /**
+     * Times the commit too, like {@link #create}: the transaction runs inside the recorded call.
+     */
+    public void delete(Long bookingId) {
+        bookingMetrics.record("delete", "deleted",
+                () -> transaction.executeWithoutResult(status -> deleteBooking(bookingId)));
+    }
+
+    private BookingDto createBooking(BookingRequestRegistration request, long holdKeyToIgnore) {
         if (request.exitDate().isBefore(request.entryDate())
                 || request.entryDate().isEqual(request.exitDate())) {
             throw new IllegalArgumentException("Invalid dates");
         }
 
-        Optional<Room> room = roomRepository.findById(request.roomId());
-        Optional<User> user = userRepository.findById(request.userId());
+        // Cached lookups; the entities are only referenced by id so the insert needs no extra selects
+        RoomDto room = roomService.findById(request.roomId());
+        UserDto user = userService.findById(request.userId());
 
-        if (room.isEmpty()){
-            throw new ResourceNotFound("Room not found");
-        }
-        if (user.isEmpty()) {
-            throw new ResourceNotFound("User not found");
-        }
-
-        if(!isRoomAvailable(room.get().getId(), request.entryDate(), request.exitDate())) {
+        // In-memory fast path only; the booking_no_overlap constraint is what guarantees no double booking
+        if(!availabilityEngine.isRoomAvailable(room.id(), request.entryDate(), request.exitDate(), holdKeyToIgnore)) {
             throw new RoomNotAvailableException("Invalid dates");
         }
 
         Booking booking = new Booking();
-        booking.setRoom(room.get());
-        booking.setUser(user.get());
+        booking.setRoom(roomRepository.getReferenceById(room.id()));
+        booking.setUser(userRepository.getReferenceById(user.id()));
         booking.setExitDate(request.exitDate());
         booking.setEntryDate(request.entryDate());
 
-        bookingRepository.save(booking);
+        saveRejectingOverlaps(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.created(BookingSnapshot.of(booking)));
 
-        return bookingDtoMapper.apply(booking);
+        return bookingDtoMapper.apply(booking, room, user);
     }
 
-    @Transactional
-    public BookingDto update(Long id, BookingRequestUpdating requestUpdating) {
+    private BookingDto updateBooking(Long id, BookingRequestUpdating requestUpdating, Long expectedVersion) {
         Optional<Booking> booking = bookingRepository.findById(id);
 
         if (booking.isEmpty()) {
             throw new ResourceNotFound("Booking not found");
         }
+        OptimisticLocks.requireVersion(expectedVersion, booking.get().getVersion());
 
         if (requestUpdating.exitDate().isBefore(requestUpdating.entryDate())
         || requestUpdating.exitDate().isEqual(requestUpdating.entryDate())) {
             throw new IllegalArgumentException("Invalid dates");
         }
 
-        Optional<Room> existingRoom = roomRepository.findById(requestUpdating.roomId());
-        if (existingRoom.isEmpty()) {
-            throw new ResourceNotFound("Room not found");
-        }
-
-        Room room = existingRoom.get();
+        RoomDto room = roomService.findById(requestUpdating.roomId());
 
-        if (!isRoomAvailableForUpdate(room.getId(), requestUpdating.entryDate(), requestUpdating.exitDate(), id)){
+        if (!isRoomAvailableForUpdate(room.id(), requestUpdating.entryDate(), requestUpdating.exitDate(), id)){
             throw new RoomNotAvailableException("Invalid dates");
         }
 
         Booking bookingToUpdate = booking.get();
+        BookingSnapshot before = BookingSnapshot.of(bookingToUpdate);
 
-        bookingToUpdate.setRoom(room);
+        bookingToUpdate.setRoom(roomRepository.getReferenceById(room.id()));
         bookingToUpdate.setExitDate(requestUpdating.exitDate());
         bookingToUpdate.setEntryDate(requestUpdating.entryDate());
 
-        bookingRepository.save(bookingToUpdate);
+        saveRejectingOverlaps(bookingToUpdate);
+        eventPublisher.publishEvent(BookingChangedEvent.updated(before, BookingSnapshot.of(bookingToUpdate)));
 
-        return bookingDtoMapper.apply(bookingToUpdate);
+        return bookingDtoMapper.apply(bookingToUpdate, room, userService.findById(bookingToUpdate.getUser().getId()));
     }
 
-    @Transactional
-    public void delete(Long bookingId) {
-        if(bookingRepository.findById(bookingId).isEmpty()) {
+    private void deleteBooking(Long bookingId) {
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        if(booking.isEmpty()) {
             throw new ResourceNotFound("Booking not found");
         }
         bookingRepository.deleteById(bookingId);
+        eventPublisher.publishEvent(BookingChangedEvent.deleted(BookingSnapshot.of(booking.get())));
     }
 
-}
+    private void saveRejectingOverlaps(Booking booking) {
+        try {
+            bookingRepository.saveAndFlush(booking);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw OptimisticLocks.versionConflict();
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw new RoomNotAvailableException("Invalid dates");
+            }
+            throw e;
+        }
+    }
 
+    static boolean isOverlapViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && OVERLAP_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName())) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException
+                    && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+package com.nasor.bookingapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Admission control for booking writes, checked before any database work: a {@link TokenBucket} per client
+ * and one {@link AdaptiveConcurrencyLimit} shared by all clients. Buckets of clients that have gone quiet
+ * are evicted, and a new bucket starts full, so eviction never penalises anyone.
+ * <p>
+ * Published as {@value #REJECTIONS} (tagged reason=rate_limited or overloaded), {@value #CONCURRENCY_LIMIT},
+ * {@value #IN_FLIGHT} and {@value #CLIENTS}.
+ */
+@Component
+public class BookingWriteLimiter {
+    public static final String REJECTIONS = "booking.limiter.rejections";
+    public static final String CONCURRENCY_LIMIT = "booking.limiter.concurrency.limit";
+    public static final String IN_FLIGHT = "booking.limiter.concurrency.in.flight";
+    public static final String CLIENTS = "booking.limiter.clients";
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Cache<String, TokenBucket> buckets;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Counter rateLimited;
+    private final Counter overloaded;
+
+    public BookingWriteLimiter(MeterRegistry registry,
+                               @Value("${booking.limits.rate.permits-per-second:5}") double permitsPerSecond,
+                               @Value("${booking.limits.rate.burst:20}") int burst,
+                               @Value("${booking.limits.rate.max-clients:100000}") long maxClients,
+                               @Value("${booking.limits.concurrency.initial:20}") int initialLimit,
+                               @Value("${booking.limits.concurrency.min:4}") int minLimit,
+                               @Value("${booking.limits.concurrency.max:100}") int maxLimit,
+                               @Value("${booking.limits.concurrency.latency-threshold:250ms}") Duration latencyThreshold,
+                               @Value("${booking.limits.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        // A bucket left alone for this long has refilled completely, so dropping it changes nothing
+        Duration refill = Duration.ofNanos((long) (burst * 1_000_000_000L / permitsPerSecond));
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(refill.plusSeconds(1))
+                .maximumSize(maxClients)
+                .build();
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                latencyThreshold.toNanos(), backoffRatio);
+
+        this.rateLimited = registry.counter(REJECTIONS, "reason", "rate_limited");
+        this.overloaded = registry.counter(REJECTIONS, "reason", "overloaded");
+        Gauge.builder(CONCURRENCY_LIMIT, concurrencyLimit, AdaptiveConcurrencyLimit::limit).register(registry);
+        Gauge.builder(IN_FLIGHT, concurrencyLimit, AdaptiveConcurrencyLimit::inFlight).register(registry);
+        Gauge.builder(CLIENTS, buckets, Cache::estimatedSize).register(registry);
+    }
+
+    /**
+     * Takes a token from the client's bucket. Returns 0 when granted, otherwise the nanoseconds until the
+     * client may retry.
+     */
+    public long tryAcquireRate(String client, long nowNanos) {
+        long wait = buckets.get(client, key -> new TokenBucket(permitsPerSecond, burst, nowNanos)).tryAcquire(nowNanos);
+        if (wait > 0) {
+            rateLimited.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Admits a write if the concurrency limit allows; every admitted write must end with {@link #release(long)}.
+     */
+    public boolean tryAcquireConcurrency() {
+        if (concurrencyLimit.tryAcquire()) {
+            return true;
+        }
+        overloaded.increment();
+        return false;
+    }
+
+    public void release(long latencyNanos) {
+        concurrencyLimit.release(latencyNanos);
+    }
+}
@@ -0,0 +1,128 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Change tokens for the list endpoints, used as ETags. A writing transaction inserts one collection_change row
+ * per collection it changed just before it commits; inserts take no shared row lock, so writers never queue
+ * behind each other here. A token is the collection's collection_version.version and its number of change
+ * rows: within one version rows are only added, so a later snapshot that sees the same count sees the same
+ * writes. {@link #compact()} deletes the rows and bumps the version in one transaction to keep the count cheap.
+ * Readers take the token in the same read-only transaction that loads the page, and before it, so the token
+ * never describes data newer than the page served with it, even when that transaction runs on a lagging replica.
+ */
+@Slf4j
+@Component
+public class CollectionVersions {
+    private static final long COMPACT_LOCK = 0x636f6c6c656374L;
+
+    public enum Name {
+        ROOMS, USERS, BOOKINGS
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CollectionVersions(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Runs {@code read} with the current token of {@code name} inside one read-only transaction; service calls
+     * made by {@code read} join it and so see at least the data the token stands for.
+     */
+    public <T> T read(Name name, Function<String, T> read) {
+        return readOnlyTransaction.execute(status -> read.apply(current(name)));
+    }
+
+    private String current(Name name) {
+        return jdbcTemplate.queryForObject("""
+                SELECT v.version || '.' || (SELECT count(*) FROM collection_change c WHERE c.name = v.name)
+                FROM collection_version v
+                WHERE v.name = ?
+                """, String.class, name.name());
+    }
+
+    /**
+     * Records the change as the last statement of the current transaction, once per collection however many
+     * times it is called, or right away outside a transaction.
+     */
+    public void changed(Name... names) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(EnumSet.of(names[0], names));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Name> pending = (Set<Name>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Name> bumped = EnumSet.noneOf(Name.class);
+            TransactionSynchronizationManager.bindResource(this, bumped);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    record(bumped);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CollectionVersions.this);
+                }
+            });
+            pending = bumped;
+        }
+        Collections.addAll(pending, names);
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        changed(Name.BOOKINGS);
+    }
+
+    /**
+     * Folds the change rows into collection_version. A compacted collection gets a new token although its data
+     * did not change, so clients revalidate it once more; a change still committing is not deleted and counts
+     * towards the new version.
+     */
+    @Scheduled(fixedDelayString = "${booking.collection-versions.compact-interval:PT1M}")
+    public void compact() {
+        transaction.executeWithoutResult(status -> {
+            // One instance compacts at a time; the others skip the round
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, COMPACT_LOCK))) {
+                return;
+            }
+            for (Name name : Name.values()) {
+                int compacted = jdbcTemplate.update("DELETE FROM collection_change WHERE name = ?", name.name());
+                if (compacted > 0) {
+                    jdbcTemplate.update("UPDATE collection_version SET version = version + 1 WHERE name = ?",
+                            name.name());
+                    log.debug("Compacted {} {} changes", compacted, name);
+                }
+            }
+        });
+    }
+
+    private void record(Set<Name> names) {
+        List<Object[]> rows = names.stream().map(name -> new Object[]{name.name()}).toList();
+        jdbcTemplate.batchUpdate("INSERT INTO collection_change (name) VALUES (?)", rows);
+    }
+}
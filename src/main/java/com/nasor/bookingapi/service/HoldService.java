@@ -0,0 +1,263 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.dto.hold.HoldDto;
+import com.nasor.bookingapi.dto.hold.HoldRequest;
+import com.nasor.bookingapi.dto.room.RoomDto;
+import com.nasor.bookingapi.dto.user.UserDto;
+import com.nasor.bookingapi.exception.ResourceNotFound;
+import com.nasor.bookingapi.exception.RoomNotAvailableException;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tentative holds on a room and date range. Holds live in memory: they block availability through
+ * {@link AvailabilityEngine}, expire from a {@link DelayQueue} drained by a single reaper thread and are copied
+ * to the booking_hold table by a scheduled batch, so creating or releasing one never waits on the database.
+ * The table is only read at startup; a hold created less than one flush interval before a crash is lost.
+ * A new hold is checked under the room's {@link RoomWriteLocks} lock, the one booking writes take, so a hold
+ * and a booking can never both take the same dates.
+ * Like {@link AvailabilityEngine}, holds only exist in the instance that created them: another instance
+ * neither sees them block availability nor can confirm them, until it restarts and reads booking_hold.
+ * Run a single instance, or route every request for a room to the same one, when holds are used.
+ */
+@Slf4j
+@Service
+@Timed(BookingMetrics.SERVICE_TIMER)
+public class HoldService implements SmartInitializingSingleton, DisposableBean {
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final AvailabilityEngine availabilityEngine;
+    private final BookingService bookingService;
+    private final RoomService roomService;
+    private final UserService userService;
+    private final RoomWriteLocks roomWriteLocks;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Duration defaultTtl;
+
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>();
+    private final AtomicLong nextKey = new AtomicLong();
+    private final DelayQueue<Hold> expiries = new DelayQueue<>();
+    private final Queue<Hold> pendingInserts = new ConcurrentLinkedQueue<>();
+    private final Queue<UUID> pendingDeletes = new ConcurrentLinkedQueue<>();
+    // Not a monitor: flush() may run on a virtual thread, which would stay pinned for the whole batch write
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Writes drained from the queues but not yet committed; only touched under flushLock
+    private final Map<UUID, Hold> unflushedInserts = new LinkedHashMap<>();
+    private final Set<UUID> unflushedDeletes = new LinkedHashSet<>();
+    private Thread reaper;
+
+    public HoldService(AvailabilityEngine availabilityEngine, BookingService bookingService, RoomService roomService,
+                       UserService userService, RoomWriteLocks roomWriteLocks, JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${booking.holds.default-ttl:PT15M}") Duration defaultTtl) {
+        this.availabilityEngine = availabilityEngine;
+        this.bookingService = bookingService;
+        this.roomService = roomService;
+        this.userService = userService;
+        this.roomWriteLocks = roomWriteLocks;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.defaultTtl = defaultTtl;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.update("DELETE FROM booking_hold WHERE expires_at <= now()");
+        List<Hold> stored = jdbcTemplate.query(
+                "SELECT id, room_id, user_id, entry_date, exit_date, expires_at FROM booking_hold",
+                (rs, row) -> new Hold(
+                        rs.getObject("id", UUID.class),
+                        nextKey.incrementAndGet(),
+                        rs.getLong("room_id"),
+                        rs.getLong("user_id"),
+                        rs.getObject("entry_date", LocalDate.class),
+                        rs.getObject("exit_date", LocalDate.class),
+                        rs.getObject("expires_at", OffsetDateTime.class).toInstant()));
+        for (Hold hold : stored) {
+            holds.put(hold.id(), hold);
+            availabilityEngine.putHold(hold.roomId(), hold.key(), hold.entryDate(), hold.exitDate());
+            expiries.put(hold);
+        }
+        log.info("Restored {} holds", stored.size());
+
+        reaper = new Thread(this::reapExpiredHolds, "hold-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    @Override
+    public void destroy() {
+        if (reaper != null) {
+            reaper.interrupt();
+        }
+        flush();
+    }
+
+    public HoldDto create(HoldRequest request) {
+        if (request.exitDate().isBefore(request.entryDate())
+                || request.entryDate().isEqual(request.exitDate())) {
+            throw new IllegalArgumentException("Invalid dates");
+        }
+
+        RoomDto room = roomService.findById(request.roomId());
+        UserDto user = userService.findById(request.userId());
+        Duration ttl = request.minutes() == null ? defaultTtl : Duration.ofMinutes(request.minutes());
+        Hold hold = new Hold(UUID.randomUUID(), nextKey.incrementAndGet(), room.id(), user.id(),
+                request.entryDate(), request.exitDate(), Instant.now().plus(ttl));
+
+        roomWriteLocks.withRoomLock(room.id(), () -> {
+            if (!availabilityEngine.isRoomAvailable(room.id(), hold.entryDate(), hold.exitDate())) {
+                throw new RoomNotAvailableException("Invalid dates");
+            }
+            availabilityEngine.putHold(room.id(), hold.key(), hold.entryDate(), hold.exitDate());
+            holds.put(hold.id(), hold);
+            return null;
+        });
+        expiries.put(hold);
+        pendingInserts.add(hold);
+        return toDto(hold);
+    }
+
+    public HoldDto findById(UUID id) {
+        return toDto(activeHold(id));
+    }
+
+    /**
+     * Turns the hold into a booking; the hold is released only once the booking has committed.
+     */
+    public BookingDto confirm(UUID id) {
+        Hold hold = activeHold(id);
+        BookingDto booking = bookingService.createFromHold(new BookingRequestRegistration(
+                hold.roomId(), hold.userId(), hold.entryDate(), hold.exitDate()), hold.key());
+        release(hold);
+        return booking;
+    }
+
+    public void release(UUID id) {
+        release(activeHold(id));
+    }
+
+    @Scheduled(fixedDelayString = "${booking.holds.flush-interval:PT1S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        for (Hold hold; (hold = pendingInserts.poll()) != null; ) {
+            unflushedInserts.put(hold.id(), hold);
+        }
+        for (UUID id; (id = pendingDeletes.poll()) != null; ) {
+            // Created and released within one interval: the row was never written
+            if (unflushedInserts.remove(id) == null) {
+                unflushedDeletes.add(id);
+            }
+        }
+        if (unflushedInserts.isEmpty() && unflushedDeletes.isEmpty()) {
+            return;
+        }
+
+        try {
+            transaction.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("INSERT INTO booking_hold (id, room_id, user_id, entry_date, exit_date, expires_at) " +
+                                "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING",
+                        unflushedInserts.values(), FLUSH_BATCH_SIZE, (ps, hold) -> {
+                            ps.setObject(1, hold.id());
+                            ps.setLong(2, hold.roomId());
+                            ps.setLong(3, hold.userId());
+                            ps.setObject(4, hold.entryDate());
+                            ps.setObject(5, hold.exitDate());
+                            ps.setObject(6, OffsetDateTime.ofInstant(hold.expiresAt(), ZoneOffset.UTC));
+                        });
+                jdbcTemplate.batchUpdate("DELETE FROM booking_hold WHERE id = ?",
+                        unflushedDeletes, FLUSH_BATCH_SIZE, (ps, id) -> ps.setObject(1, id));
+            });
+            unflushedInserts.clear();
+            unflushedDeletes.clear();
+        } catch (DataAccessException e) {
+            log.warn("Writing {} hold inserts and {} deletes failed, retrying on the next flush",
+                    unflushedInserts.size(), unflushedDeletes.size(), e);
+        }
+    }
+
+    private Hold activeHold(UUID id) {
+        Hold hold = holds.get(id);
+        if (hold == null || !hold.expiresAt().isAfter(Instant.now())) {
+            throw new ResourceNotFound("Hold with id " + id + " not found or expired");
+        }
+        return hold;
+    }
+
+    private void release(Hold hold) {
+        if (holds.remove(hold.id(), hold)) {
+            availabilityEngine.removeHold(hold.roomId(), hold.key());
+            pendingDeletes.add(hold.id());
+        }
+    }
+
+    // Released holds stay queued until their expiry time; release() ignores them by then
+    private void reapExpiredHolds() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                release(expiries.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Failed to expire a hold", e);
+            }
+        }
+    }
+
+    private static HoldDto toDto(Hold hold) {
+        return new HoldDto(hold.id(), hold.roomId(), hold.userId(), hold.entryDate(), hold.exitDate(), hold.expiresAt());
+    }
+
+    private record Hold(UUID id, long key, long roomId, long userId,
+                        LocalDate entryDate, LocalDate exitDate, Instant expiresAt) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), expiresAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return expiresAt.compareTo(((Hold) other).expiresAt);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.nasor.bookingapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.exception.IdempotencyKeyReusedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Idempotency-Key support for booking creation. Keys are scoped to the client that sent them (see
+ * {@code ClientIds}), so two clients choosing the same key never see each other's bookings. A key's response
+ * is looked up in a Caffeine cache, then in the
+ * idempotency_key table; only a key seen nowhere runs {@link BookingService#create}. The row is claimed before
+ * the booking is inserted and filled in after, all in the booking's transaction: another instance racing on the
+ * same key blocks on the claim and then replays, and a failed create leaves no row, so the retry runs again.
+ * Requests with the same key arriving while the first is still running wait for its outcome instead of running
+ * themselves; one carrying a different request is rejected before it waits. Reusing a key for a different
+ * request is rejected with {@link IdempotencyKeyReusedException}.
+ * <p>
+ * Counted under {@value #REQUESTS}, tagged source=executed, cache, store or coalesced.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    public static final String REQUESTS = "booking.idempotency.requests";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final BookingService bookingService;
+    private final RoomWriteLocks roomWriteLocks;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+    private final Duration retention;
+    private final Cache<ScopedKey, StoredResponse> responses;
+    private final Map<ScopedKey, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(BookingService bookingService, RoomWriteLocks roomWriteLocks, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager, ObjectMapper objectMapper, MeterRegistry registry,
+                              @Value("${booking.idempotency.retention:P1D}") Duration retention,
+                              @Value("${booking.idempotency.cache-size:10000}") long cacheSize) {
+        this.bookingService = bookingService;
+        this.roomWriteLocks = roomWriteLocks;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.retention = retention;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    public record Result(BookingDto booking, boolean replayed) {
+    }
+
+    public Result create(String clientId, String idempotencyKey, BookingRequestRegistration request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Invalid idempotency key");
+        }
+        ScopedKey key = new ScopedKey(clientId, idempotencyKey);
+        String requestHash = hash(request);
+
+        StoredResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return replay(cached, requestHash, "cache");
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // Checked before waiting, so a different request never gets the first one's outcome or exception
+            checkSameRequest(running.requestHash(), requestHash);
+            return replay(await(running.response()), requestHash, "coalesced");
+        }
+
+        try {
+            Execution execution = execute(key, requestHash, request);
+            responses.put(key, execution.response());
+            mine.response().complete(execution.response());
+            return execution.replayed()
+                    ? replay(execution.response(), requestHash, "store")
+                    : count(new Result(execution.response().booking(), false), "executed");
+        } catch (RuntimeException e) {
+            mine.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${booking.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_key WHERE created_at < ?",
+                Timestamp.from(Instant.now().minus(retention)));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Execution execute(ScopedKey key, String requestHash, BookingRequestRegistration request) {
+        // Room lock first, as BookingService does, so the claim's transaction does not hold a connection while waiting
+        BookingDto created = roomWriteLocks.withRoomLock(request.roomId(), () -> transaction.execute(status -> {
+            int claimed = jdbcTemplate.update(
+                    "INSERT INTO idempotency_key (client_id, idempotency_key, request_hash) VALUES (?, ?, ?) " +
+                            "ON CONFLICT DO NOTHING",
+                    key.clientId(), key.idempotencyKey(), requestHash);
+            if (claimed == 0) {
+                return null;
+            }
+            BookingDto booking = bookingService.create(request);
+            jdbcTemplate.update("UPDATE idempotency_key SET booking_id = ?, response = ? " +
+                            "WHERE client_id = ? AND idempotency_key = ?",
+                    booking.id(), toJson(booking), key.clientId(), key.idempotencyKey());
+            return booking;
+        }));
+        if (created != null) {
+            return new Execution(new StoredResponse(requestHash, created), false);
+        }
+
+        // Claimed by a transaction that has committed since, here or on another instance
+        List<StoredResponse> stored = jdbcTemplate.query(
+                "SELECT request_hash, response FROM idempotency_key WHERE client_id = ? AND idempotency_key = ?",
+                (rs, row) -> new StoredResponse(rs.getString("request_hash"), fromJson(rs.getString("response"))),
+                key.clientId(), key.idempotencyKey());
+        if (stored.isEmpty()) {
+            throw new IllegalStateException("Idempotency key " + key.idempotencyKey() + " was claimed but not found");
+        }
+        return new Execution(stored.get(0), true);
+    }
+
+    private Result replay(StoredResponse response, String requestHash, String source) {
+        checkSameRequest(response.requestHash(), requestHash);
+        return count(new Result(response.booking(), true), source);
+    }
+
+    private static void checkSameRequest(String firstHash, String requestHash) {
+        if (!firstHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException("Idempotency key was already used for a different booking request");
+        }
+    }
+
+    private Result count(Result result, String source) {
+        registry.counter(REQUESTS, "source", source).increment();
+        return result;
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String hash(BookingRequestRegistration request) {
+        String canonical = request.roomId() + "|" + request.userId() + "|" + request.entryDate() + "|" + request.exitDate();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(BookingDto booking) {
+        try {
+            return objectMapper.writeValueAsString(booking);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BookingDto fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, BookingDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record ScopedKey(String clientId, String idempotencyKey) {
+    }
+
+    private record StoredResponse(String requestHash, BookingDto booking) {
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<StoredResponse> response) {
+    }
+
+    private record Execution(StoredResponse response, boolean replayed) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.exception.PreconditionFailedException;
+import com.nasor.bookingapi.exception.VersionConflictException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+/**
+ * A stale If-Match is rejected with 412 before anything is written. A writer that commits between our read
+ * and our flush makes the versioned UPDATE match no row, which is reported as 409; no row lock is held
+ * while the request runs.
+ */
+final class OptimisticLocks {
+    private OptimisticLocks() {
+    }
+
+    static void requireVersion(Long expectedVersion, Long currentVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new PreconditionFailedException("Resource has changed since version " + expectedVersion);
+        }
+    }
+
+    static <T> T saveAndFlush(JpaRepository<T, Long> repository, T entity) {
+        try {
+            return repository.saveAndFlush(entity);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw versionConflict();
+        }
+    }
+
+    static VersionConflictException versionConflict() {
+        return new VersionConflictException("Resource was modified by another request, reload it and retry");
+    }
+}
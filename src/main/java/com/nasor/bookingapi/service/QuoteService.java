@@ -0,0 +1,139 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.dto.room.RoomDto;
+import com.nasor.bookingapi.dto.room.RoomQuoteDto;
+import com.nasor.bookingapi.model.RateRule;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.repository.RateRuleRepository;
+import com.nasor.bookingapi.repository.RoomRepository;
+import com.nasor.bookingapi.repository.projection.RoomPricing;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stay totals priced from the rate_rule table. The rules are held in a {@link RateTable} rebuilt on a schedule,
+ * so rule changes made in the database show up within one refresh interval. Occupancy tiers use the in-memory
+ * occupancy index, and the bulk quote takes availability from {@link AvailabilityEngine}: one query for the
+ * rooms' prices and types is the only database work of a quote.
+ */
+@Slf4j
+@Service
+@Timed(BookingMetrics.SERVICE_TIMER)
+public class QuoteService implements SmartInitializingSingleton {
+    public static final int MAX_QUOTE_NIGHTS = 90;
+
+    private final RateRuleRepository rateRuleRepository;
+    private final RoomRepository roomRepository;
+    private final RoomService roomService;
+    private final AvailabilityEngine availabilityEngine;
+    private final int horizonDays;
+    private volatile RateTable rateTable = RateTable.of(List.of(), LocalDate.now(), 0);
+
+    public QuoteService(RateRuleRepository rateRuleRepository, RoomRepository roomRepository, RoomService roomService,
+                        AvailabilityEngine availabilityEngine,
+                        @Value("${booking.pricing.horizon-days:730}") int horizonDays) {
+        this.rateRuleRepository = rateRuleRepository;
+        this.roomRepository = roomRepository;
+        this.roomService = roomService;
+        this.availabilityEngine = availabilityEngine;
+        this.horizonDays = horizonDays;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${booking.pricing.refresh-interval:PT5M}",
+            initialDelayString = "${booking.pricing.refresh-interval:PT5M}")
+    public void refresh() {
+        List<RateRule> rules = rateRuleRepository.findAll();
+        rateTable = RateTable.of(rules, LocalDate.now(), horizonDays);
+        log.debug("Loaded {} rate rules", rules.size());
+    }
+
+    @Transactional(readOnly = true)
+    public RoomQuoteDto quoteRoom(Long roomId, LocalDate from, LocalDate to) {
+        int nights = validateStay(from, to);
+        RoomDto room = roomService.findById(roomId);
+        RoomType type = RoomType.valueOf(room.roomType().name());
+        RateTable table = rateTable;
+
+        int[] occupied = null;
+        int totalRooms = 0;
+        if (table.hasOccupancyTiers(type)) {
+            List<Long> sameType = roomRepository.findPricing(type).stream().map(RoomPricing::getId).toList();
+            occupied = new int[nights];
+            totalRooms = sameType.size();
+            availabilityEngine.countOccupiedRooms(sameType, from, occupied);
+        }
+
+        BigDecimal[] factors = table.nightFactors(type, RoomIntervalIndex.toDay(from), nights, occupied, totalRooms);
+        return toDto(room.id(), room.number(), type, room.pricePerNight(), from, to, factors);
+    }
+
+    /**
+     * Quotes every room free for the whole stay (the same test as booking creation), optionally of one type.
+     */
+    @Transactional(readOnly = true)
+    public List<RoomQuoteDto> quoteAvailable(LocalDate from, LocalDate to, RoomType type) {
+        int nights = validateStay(from, to);
+        RateTable table = rateTable;
+        int fromDay = RoomIntervalIndex.toDay(from);
+
+        Map<RoomType, List<Long>> roomIdsByType = new EnumMap<>(RoomType.class);
+        List<RoomPricing> rooms = roomRepository.findPricing(type);
+        for (RoomPricing room : rooms) {
+            roomIdsByType.computeIfAbsent(room.getType(), t -> new ArrayList<>()).add(room.getId());
+        }
+
+        Map<RoomType, BigDecimal[]> factorsByType = new EnumMap<>(RoomType.class);
+        roomIdsByType.forEach((roomType, ids) -> {
+            int[] occupied = null;
+            if (table.hasOccupancyTiers(roomType)) {
+                occupied = new int[nights];
+                availabilityEngine.countOccupiedRooms(ids, from, occupied);
+            }
+            factorsByType.put(roomType, table.nightFactors(roomType, fromDay, nights, occupied, ids.size()));
+        });
+
+        List<RoomQuoteDto> quotes = new ArrayList<>();
+        for (RoomPricing room : rooms) {
+            if (availabilityEngine.isRoomAvailable(room.getId(), from, to)) {
+                quotes.add(toDto(room.getId(), room.getNumber(), room.getType(), room.getPricePerNight(), from, to,
+                        factorsByType.get(room.getType())));
+            }
+        }
+        return quotes;
+    }
+
+    private static int validateStay(LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || to.isEqual(from)) {
+            throw new IllegalArgumentException("Invalid dates");
+        }
+        long nights = ChronoUnit.DAYS.between(from, to);
+        if (nights > MAX_QUOTE_NIGHTS) {
+            throw new IllegalArgumentException("Quotes cannot exceed " + MAX_QUOTE_NIGHTS + " nights");
+        }
+        return (int) nights;
+    }
+
+    private static RoomQuoteDto toDto(Long roomId, String number, RoomType type, Double pricePerNight,
+                                      LocalDate from, LocalDate to, BigDecimal[] factors) {
+        RateTable.Quote quote = RateTable.quote(BigDecimal.valueOf(pricePerNight), factors);
+        return new RoomQuoteDto(roomId, number, type.name(), from, to, quote.total(), quote.nightly());
+    }
+}
@@ -0,0 +1,145 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.model.RateRule;
+import com.nasor.bookingapi.model.RoomType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable per-night price factors built from the rate rules. For every room type the product of the calendar
+ * (season and weekday) multipliers is precomputed for each night of the horizon into an array indexed by epoch
+ * day, so pricing a night costs one array read; nights outside the horizon are evaluated from the rules.
+ * Occupancy tiers depend on live bookings and are applied per request in {@link #nightFactors}.
+ */
+public final class RateTable {
+    public static final int PRICE_SCALE = 2;
+    private static final int ALL_DAYS = 0x7F;
+
+    private final List<CalendarRule> calendarRules;
+    private final Map<RoomType, Tier[]> tiers = new EnumMap<>(RoomType.class);
+    private final Map<RoomType, BigDecimal[]> calendarFactors = new EnumMap<>(RoomType.class);
+    private final int firstDay;
+
+    private RateTable(List<CalendarRule> calendarRules, List<Tier> allTiers, int firstDay, int days) {
+        this.calendarRules = calendarRules;
+        this.firstDay = firstDay;
+        for (RoomType type : RoomType.values()) {
+            tiers.put(type, allTiers.stream()
+                    .filter(tier -> tier.type() == null || tier.type() == type)
+                    .sorted(Comparator.comparing(Tier::minOccupancy).reversed())
+                    .toArray(Tier[]::new));
+
+            BigDecimal[] factors = new BigDecimal[days];
+            for (int i = 0; i < days; i++) {
+                factors[i] = evaluate(type, firstDay + i);
+            }
+            calendarFactors.put(type, factors);
+        }
+    }
+
+    /**
+     * @param first first night to precompute
+     * @param days  number of nights to precompute from {@code first}
+     */
+    public static RateTable of(List<RateRule> rules, LocalDate first, int days) {
+        List<CalendarRule> calendarRules = new ArrayList<>();
+        List<Tier> tiers = new ArrayList<>();
+        for (RateRule rule : rules) {
+            if (rule.getMinOccupancy() != null) {
+                tiers.add(new Tier(rule.getType(), rule.getMinOccupancy(), rule.getMultiplier()));
+            } else {
+                calendarRules.add(new CalendarRule(
+                        rule.getType(),
+                        rule.getStartDate() == null ? Integer.MIN_VALUE : RoomIntervalIndex.toDay(rule.getStartDate()),
+                        rule.getEndDate() == null ? Integer.MAX_VALUE : RoomIntervalIndex.toDay(rule.getEndDate()),
+                        rule.getDaysOfWeek() == null ? ALL_DAYS : rule.getDaysOfWeek(),
+                        rule.getMultiplier()));
+            }
+        }
+        return new RateTable(List.copyOf(calendarRules), tiers, RoomIntervalIndex.toDay(first), days);
+    }
+
+    public BigDecimal calendarFactor(RoomType type, int day) {
+        BigDecimal[] factors = calendarFactors.get(type);
+        int index = day - firstDay;
+        return index >= 0 && index < factors.length ? factors[index] : evaluate(type, day);
+    }
+
+    public boolean hasOccupancyTiers(RoomType type) {
+        return tiers.get(type).length > 0;
+    }
+
+    /**
+     * Multipliers for the nights [fromDay, fromDay + nights) of a room of the given type.
+     *
+     * @param occupiedRooms rooms of the type booked on each of those nights, or null to skip occupancy tiers
+     * @param totalRooms    rooms of the type in the hotel
+     */
+    public BigDecimal[] nightFactors(RoomType type, int fromDay, int nights, int[] occupiedRooms, int totalRooms) {
+        Tier[] typeTiers = occupiedRooms == null || totalRooms == 0 ? new Tier[0] : tiers.get(type);
+        int[] minRooms = new int[typeTiers.length];
+        for (int t = 0; t < typeTiers.length; t++) {
+            minRooms[t] = typeTiers[t].minOccupancy()
+                    .multiply(BigDecimal.valueOf(totalRooms))
+                    .setScale(0, RoundingMode.CEILING)
+                    .intValueExact();
+        }
+
+        BigDecimal[] factors = new BigDecimal[nights];
+        for (int i = 0; i < nights; i++) {
+            BigDecimal factor = calendarFactor(type, fromDay + i);
+            for (int t = 0; t < typeTiers.length; t++) {
+                if (occupiedRooms[i] >= minRooms[t]) {
+                    factor = factor.multiply(typeTiers[t].multiplier());
+                    break;
+                }
+            }
+            factors[i] = factor;
+        }
+        return factors;
+    }
+
+    /**
+     * Prices every night at {@code pricePerNight} times its factor, rounded half-even to cents, and sums them.
+     */
+    public static Quote quote(BigDecimal pricePerNight, BigDecimal[] nightFactors) {
+        BigDecimal[] nightly = new BigDecimal[nightFactors.length];
+        BigDecimal total = BigDecimal.ZERO.setScale(PRICE_SCALE);
+        for (int i = 0; i < nightFactors.length; i++) {
+            nightly[i] = pricePerNight.multiply(nightFactors[i]).setScale(PRICE_SCALE, RoundingMode.HALF_EVEN);
+            total = total.add(nightly[i]);
+        }
+        return new Quote(total, Arrays.asList(nightly));
+    }
+
+    public record Quote(BigDecimal total, List<BigDecimal> nightly) {
+    }
+
+    private BigDecimal evaluate(RoomType type, int day) {
+        // 1970-01-01 was a Thursday, bit 3 with Monday as bit 0
+        int weekdayBit = 1 << Math.floorMod(day + 3, 7);
+        BigDecimal factor = BigDecimal.ONE;
+        for (CalendarRule rule : calendarRules) {
+            if ((rule.type() == null || rule.type() == type)
+                    && day >= rule.startDay() && day <= rule.endDay()
+                    && (rule.daysOfWeek() & weekdayBit) != 0) {
+                factor = factor.multiply(rule.multiplier());
+            }
+        }
+        return factor;
+    }
+
+    private record CalendarRule(RoomType type, int startDay, int endDay, int daysOfWeek, BigDecimal multiplier) {
+    }
+
+    private record Tier(RoomType type, BigDecimal minOccupancy, BigDecimal multiplier) {
+    }
+}
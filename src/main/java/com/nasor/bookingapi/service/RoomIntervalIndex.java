@@ -0,0 +1,223 @@
+package com.nasor.bookingapi.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-room index of booked date ranges, encoded as epoch days in primitive arrays sorted by entry date.
+ * Ranges are closed on both ends, the same semantics as {@code BookingRepository.findOverlappingBookings}.
+ * Readers never lock: every mutation replaces the room's arrays with a new copy.
+ */
+public final class RoomIntervalIndex {
+    public static final long NO_BOOKING = Long.MIN_VALUE;
+
+    private final Map<Long, RoomIntervals> rooms = new ConcurrentHashMap<>();
+
+    public boolean isAvailable(long roomId, LocalDate entryDate, LocalDate exitDate) {
+        return isAvailable(roomId, entryDate, exitDate, NO_BOOKING);
+    }
+
+    public boolean isAvailable(long roomId, LocalDate entryDate, LocalDate exitDate, long bookingIdToExclude) {
+        RoomIntervals intervals = rooms.get(roomId);
+        return intervals == null
+                || !intervals.overlaps(toDay(entryDate), toDay(exitDate), bookingIdToExclude);
+    }
+
+    public int countStartingOnOrAfter(long roomId, int day) {
+        RoomIntervals intervals = rooms.get(roomId);
+        return intervals == null ? 0 : intervals.size() - intervals.lastStartingOnOrBefore(day - 1) - 1;
+    }
+
+    public void put(long roomId, long bookingId, LocalDate entryDate, LocalDate exitDate) {
+        rooms.compute(roomId, (id, current) -> (current == null ? RoomIntervals.EMPTY : current)
+                .with(bookingId, toDay(entryDate), toDay(exitDate)));
+    }
+
+    public void remove(long roomId, long bookingId) {
+        rooms.computeIfPresent(roomId, (id, current) -> current.without(bookingId));
+    }
+
+    /**
+     * Replaces everything known about a room. {@code entryDays} and {@code exitDays} are parallel to
+     * {@code bookingIds} and do not need to be sorted.
+     */
+    public void replaceRoom(long roomId, long[] bookingIds, int[] entryDays, int[] exitDays) {
+        RoomIntervals intervals = RoomIntervals.of(bookingIds, entryDays, exitDays);
+        if (intervals.size() == 0) {
+            rooms.remove(roomId);
+        } else {
+            rooms.put(roomId, intervals);
+        }
+    }
+
+    public void clear() {
+        rooms.clear();
+    }
+
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * True when both indexes hold exactly the same ranges for the room.
+     */
+    public boolean sameRoom(long roomId, RoomIntervalIndex other) {
+        RoomIntervals mine = rooms.get(roomId);
+        RoomIntervals theirs = other.rooms.get(roomId);
+        if (mine == null || theirs == null) {
+            return mine == theirs;
+        }
+        return Arrays.equals(mine.ids, theirs.ids)
+                && Arrays.equals(mine.starts, theirs.starts)
+                && Arrays.equals(mine.ends, theirs.ends);
+    }
+
+    public Set<Long> roomIds() {
+        return Collections.unmodifiableSet(rooms.keySet());
+    }
+
+    public static int toDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    private static final class RoomIntervals {
+        static final RoomIntervals EMPTY = new RoomIntervals(new long[0], new int[0], new int[0]);
+
+        final long[] ids;
+        final int[] starts;
+        final int[] ends;
+        // maxEnds[i] = max(ends[0..i]); lets a lookup stop as soon as no earlier range can reach the query
+        final int[] maxEnds;
+
+        private RoomIntervals(long[] ids, int[] starts, int[] ends) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new int[ends.length];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+
+        static RoomIntervals of(long[] ids, int[] starts, int[] ends) {
+            Integer[] order = new Integer[ids.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> starts[a] != starts[b]
+                    ? Integer.compare(starts[a], starts[b])
+                    : Long.compare(ids[a], ids[b]));
+
+            long[] sortedIds = new long[ids.length];
+            int[] sortedStarts = new int[ids.length];
+            int[] sortedEnds = new int[ids.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedIds[i] = ids[order[i]];
+                sortedStarts[i] = starts[order[i]];
+                sortedEnds[i] = ends[order[i]];
+            }
+            return new RoomIntervals(sortedIds, sortedStarts, sortedEnds);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        boolean overlaps(int entryDay, int exitDay, long bookingIdToExclude) {
+            for (int i = lastStartingOnOrBefore(exitDay); i >= 0 && maxEnds[i] >= entryDay; i--) {
+                if (ends[i] >= entryDay && ids[i] != bookingIdToExclude) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        RoomIntervals with(long bookingId, int start, int end) {
+            RoomIntervals base = indexOf(bookingId) >= 0 ? without(bookingId) : this;
+            if (base == null) {
+                base = EMPTY;
+            }
+            int n = base.size();
+            int at = base.insertionPoint(start, bookingId);
+
+            long[] newIds = new long[n + 1];
+            int[] newStarts = new int[n + 1];
+            int[] newEnds = new int[n + 1];
+            System.arraycopy(base.ids, 0, newIds, 0, at);
+            System.arraycopy(base.starts, 0, newStarts, 0, at);
+            System.arraycopy(base.ends, 0, newEnds, 0, at);
+            newIds[at] = bookingId;
+            newStarts[at] = start;
+            newEnds[at] = end;
+            System.arraycopy(base.ids, at, newIds, at + 1, n - at);
+            System.arraycopy(base.starts, at, newStarts, at + 1, n - at);
+            System.arraycopy(base.ends, at, newEnds, at + 1, n - at);
+            return new RoomIntervals(newIds, newStarts, newEnds);
+        }
+
+        // Returns null once the last range is removed so ConcurrentHashMap.compute drops the room
+        RoomIntervals without(long bookingId) {
+            int at = indexOf(bookingId);
+            if (at < 0) {
+                return this;
+            }
+            int n = size();
+            if (n == 1) {
+                return null;
+            }
+            long[] newIds = new long[n - 1];
+            int[] newStarts = new int[n - 1];
+            int[] newEnds = new int[n - 1];
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(starts, 0, newStarts, 0, at);
+            System.arraycopy(ends, 0, newEnds, 0, at);
+            System.arraycopy(ids, at + 1, newIds, at, n - at - 1);
+            System.arraycopy(starts, at + 1, newStarts, at, n - at - 1);
+            System.arraycopy(ends, at + 1, newEnds, at, n - at - 1);
+            return new RoomIntervals(newIds, newStarts, newEnds);
+        }
+
+        private int indexOf(long bookingId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == bookingId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int lastStartingOnOrBefore(int day) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low - 1;
+        }
+
+        private int insertionPoint(int start, long bookingId) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < start || (starts[mid] == start && ids[mid] < bookingId)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
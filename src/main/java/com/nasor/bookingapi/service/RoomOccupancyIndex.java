@@ -0,0 +1,158 @@
+package com.nasor.bookingapi.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-room bitset of occupied nights keyed by epoch day. A booking occupies the nights from its entry date
+ * up to, but not including, its exit date. Like {@link RoomIntervalIndex}, each mutation swaps in a new copy
+ * of the room's words so readers never lock.
+ */
+public final class RoomOccupancyIndex {
+    private final Map<Long, Nights> rooms = new ConcurrentHashMap<>();
+
+    public void occupy(long roomId, int fromDay, int toDayExclusive) {
+        if (fromDay < toDayExclusive) {
+            rooms.compute(roomId, (id, current) -> Nights.with(current, fromDay, toDayExclusive, true));
+        }
+    }
+
+    public void release(long roomId, int fromDay, int toDayExclusive) {
+        if (fromDay < toDayExclusive) {
+            rooms.computeIfPresent(roomId, (id, current) -> Nights.with(current, fromDay, toDayExclusive, false));
+        }
+    }
+
+    public void replaceRoom(long roomId, int[] entryDays, int[] exitDays) {
+        Nights nights = null;
+        for (int i = 0; i < entryDays.length; i++) {
+            if (entryDays[i] < exitDays[i]) {
+                nights = Nights.with(nights, entryDays[i], exitDays[i], true);
+            }
+        }
+        if (nights == null) {
+            rooms.remove(roomId);
+        } else {
+            rooms.put(roomId, nights);
+        }
+    }
+
+    public void clear() {
+        rooms.clear();
+    }
+
+    public boolean isOccupied(long roomId, int day) {
+        Nights nights = rooms.get(roomId);
+        return nights != null && nights.get(day);
+    }
+
+    /**
+     * Writes '1' for every occupied night and '0' for every free night of [fromDay, fromDay + out.length).
+     */
+    public void writeNights(long roomId, int fromDay, char[] out) {
+        Nights nights = rooms.get(roomId);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = nights != null && nights.get(fromDay + i) ? '1' : '0';
+        }
+    }
+
+    public int countNights(long roomId, int fromDay, int toDayExclusive) {
+        Nights nights = rooms.get(roomId);
+        return nights == null ? 0 : nights.count(fromDay, toDayExclusive);
+    }
+
+    public int nextFreeNight(long roomId, int fromDay) {
+        Nights nights = rooms.get(roomId);
+        return nights == null ? fromDay : nights.nextFree(fromDay);
+    }
+
+    /**
+     * First day, from {@code fromDay} on, that starts {@code length} consecutive free nights.
+     */
+    public int nextFreeRun(long roomId, int fromDay, int length) {
+        Nights nights = rooms.get(roomId);
+        if (nights == null) {
+            return fromDay;
+        }
+        int start = nights.nextFree(fromDay);
+        for (int day = start; day < start + length; ) {
+            if (nights.get(day)) {
+                start = nights.nextFree(day + 1);
+                day = start;
+            } else {
+                day++;
+            }
+        }
+        return start;
+    }
+
+    private static final class Nights {
+        final int firstWord;
+        final long[] words;
+
+        private Nights(int firstWord, long[] words) {
+            this.firstWord = firstWord;
+            this.words = words;
+        }
+
+        static Nights with(Nights current, int fromDay, int toDayExclusive, boolean occupied) {
+            int fromWord = Math.floorDiv(fromDay, Long.SIZE);
+            int toWord = Math.floorDiv(toDayExclusive - 1, Long.SIZE);
+
+            int firstWord;
+            long[] words;
+            if (current == null) {
+                firstWord = fromWord;
+                words = new long[toWord - fromWord + 1];
+            } else {
+                firstWord = Math.min(current.firstWord, fromWord);
+                int lastWord = Math.max(current.firstWord + current.words.length - 1, toWord);
+                words = new long[lastWord - firstWord + 1];
+                System.arraycopy(current.words, 0, words, current.firstWord - firstWord, current.words.length);
+            }
+
+            for (int day = fromDay; day < toDayExclusive; day++) {
+                int word = Math.floorDiv(day, Long.SIZE) - firstWord;
+                long bit = 1L << Math.floorMod(day, Long.SIZE);
+                words[word] = occupied ? words[word] | bit : words[word] & ~bit;
+            }
+            return new Nights(firstWord, words);
+        }
+
+        boolean get(int day) {
+            int word = Math.floorDiv(day, Long.SIZE) - firstWord;
+            return word >= 0 && word < words.length
+                    && (words[word] & (1L << Math.floorMod(day, Long.SIZE))) != 0;
+        }
+
+        int nextFree(int fromDay) {
+            int word = Math.floorDiv(fromDay, Long.SIZE) - firstWord;
+            if (word < 0) {
+                return fromDay;
+            }
+            long from = -1L << Math.floorMod(fromDay, Long.SIZE);
+            for (; word < words.length; word++, from = -1L) {
+                long free = ~words[word] & from;
+                if (free != 0) {
+                    return (word + firstWord) * Long.SIZE + Long.numberOfTrailingZeros(free);
+                }
+            }
+            return Math.max(fromDay, (firstWord + words.length) * Long.SIZE);
+        }
+
+        int count(int fromDay, int toDayExclusive) {
+            int count = 0;
+            for (int day = fromDay; day < toDayExclusive; ) {
+                int word = Math.floorDiv(day, Long.SIZE) - firstWord;
+                int bitFrom = Math.floorMod(day, Long.SIZE);
+                int bitTo = (int) Math.min(Long.SIZE, bitFrom + ((long) toDayExclusive - day));
+                if (word >= 0 && word < words.length) {
+                    long mask = bitTo == Long.SIZE ? -1L << bitFrom : ((1L << bitTo) - 1) & (-1L << bitFrom);
+                    count += Long.bitCount(words[word] & mask);
+                }
+                day += bitTo - bitFrom;
+            }
+            return count;
+        }
+    }
+}
@@ -1,40 +1,105 @@
 package com.nasor.bookingapi.service;
 
+import com.nasor.bookingapi.config.CacheConfig;
+import com.nasor.bookingapi.config.ReplicaRoutingDataSource;
+import com.nasor.bookingapi.dto.page.CursorPage;
+import com.nasor.bookingapi.dto.room.OccupancyCalendarDto;
 import com.nasor.bookingapi.dto.room.RoomDto;
+import com.nasor.bookingapi.dto.room.RoomOccupancyDto;
 import com.nasor.bookingapi.dto.room.RoomRequestRegistration;
 import com.nasor.bookingapi.exception.ResourceNotFound;
 import com.nasor.bookingapi.mapper.RoomDtoMapper;
 import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.RoomType;
 import com.nasor.bookingapi.repository.RoomRepository;
+import com.nasor.bookingapi.repository.projection.RoomLabel;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(BookingMetrics.SERVICE_TIMER)
 public class RoomService {
+    public static final int MAX_OCCUPANCY_NIGHTS = 366;
+
     private final RoomRepository roomRepository;
     private final RoomDtoMapper roomDtoMapper;
+    private final AvailabilityEngine availabilityEngine;
+    private final CollectionVersions collectionVersions;
 
-    public RoomService(RoomRepository roomRepository, RoomDtoMapper roomDtoMapper) {
+    public RoomService(RoomRepository roomRepository, RoomDtoMapper roomDtoMapper, AvailabilityEngine availabilityEngine,
+                       CollectionVersions collectionVersions) {
         this.roomRepository = roomRepository;
         this.roomDtoMapper = roomDtoMapper;
+        this.availabilityEngine = availabilityEngine;
+        this.collectionVersions = collectionVersions;
     }
 
     @Transactional(readOnly = true)
-    public List<RoomDto> findAll() {
+    public CursorPage<RoomDto> findAll(Long after, int limit) {
+        List<Room> rooms = roomRepository
+                .findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), Limit.of(limit + 1));
+        return CursorPage.of(rooms, limit, Room::getId, roomDtoMapper);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RoomDto> findAvailable(LocalDate from, LocalDate to, RoomType type, Double maxPrice) {
+        if (to.isBefore(from) || to.isEqual(from)) {
+            throw new IllegalArgumentException("Invalid dates");
+        }
+
         return roomRepository
-                .findAll()
+                .findAvailableRooms(from, to, type, maxPrice)
                 .stream()
+                .filter(room -> !availabilityEngine.isHeld(room.getId(), from, to))
                 .map(roomDtoMapper)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Night-by-night grid for every room over [from, to), read from the in-memory occupancy index; the
+     * only query is the list of room ids and numbers.
+     */
+    @Transactional(readOnly = true)
+    public OccupancyCalendarDto findOccupancy(LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || to.isEqual(from)) {
+            throw new IllegalArgumentException("Invalid dates");
+        }
+        long nights = ChronoUnit.DAYS.between(from, to);
+        if (nights > MAX_OCCUPANCY_NIGHTS) {
+            throw new IllegalArgumentException("Occupancy window cannot exceed " + MAX_OCCUPANCY_NIGHTS + " nights");
+        }
+
+        List<RoomLabel> labels = roomRepository.findAllLabels();
+        List<RoomOccupancyDto> rooms = new ArrayList<>(labels.size());
+        char[] grid = new char[(int) nights];
+        for (RoomLabel label : labels) {
+            availabilityEngine.writeOccupancy(label.getId(), from, grid);
+            rooms.add(new RoomOccupancyDto(label.getId(), label.getNumber(), new String(grid)));
+        }
+        return new OccupancyCalendarDto(from, to, rooms);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        return roomRepository.findVersionById(id);
+    }
+
+    // A miss reads the primary: a replica's older row would otherwise be cached, right after an update evicted it
+    @Cacheable(cacheNames = CacheConfig.ROOMS, key = "#id")
     @Transactional(readOnly = true)
     public RoomDto findById(Long id) {
-        Optional<Room> room = roomRepository.findById(id);
+        Optional<Room> room = ReplicaRoutingDataSource.readFromPrimary(() -> roomRepository.findById(id));
         if (room.isEmpty()) {
             throw new  ResourceNotFound("Room with id " + id + " not found");
         }
@@ -52,32 +117,42 @@ public class RoomService {
         room.setPricePerNight(requestRoom.pricePerNight());
 
         roomRepository.save(room);
+        collectionVersions.changed(CollectionVersions.Name.ROOMS);
 
         return roomDtoMapper.apply(room);
     }
 
+    /**
+     * @param expectedVersion version from the client's If-Match, or null to skip the precondition
+     */
+    @CacheEvict(cacheNames = CacheConfig.ROOMS, key = "#id")
     @Transactional
-    public RoomDto update(Long id, RoomRequestRegistration requestRoom) {
+    public RoomDto update(Long id, RoomRequestRegistration requestRoom, Long expectedVersion) {
         Optional<Room> room = roomRepository.findById(id);
         if (room.isEmpty()) {
             throw new  ResourceNotFound("Room with id " + id + " not found");
         }
 
         Room roomToUpdate = room.get();
+        OptimisticLocks.requireVersion(expectedVersion, roomToUpdate.getVersion());
         roomToUpdate.setNumber(requestRoom.number());
         roomToUpdate.setType(requestRoom.roomType());
         roomToUpdate.setPricePerNight(requestRoom.pricePerNight());
 
-        roomRepository.save(roomToUpdate);
+        OptimisticLocks.saveAndFlush(roomRepository, roomToUpdate);
+        // Bookings embed their room
+        collectionVersions.changed(CollectionVersions.Name.ROOMS, CollectionVersions.Name.BOOKINGS);
 
         return roomDtoMapper.apply(roomToUpdate);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.ROOMS, key = "#id")
     @Transactional
     public void delete(Long id) {
         if(roomRepository.findById(id).isEmpty()){
             throw new  ResourceNotFound("Room with id " + id + " not found");
         }
         roomRepository.deleteById(id);
+        collectionVersions.changed(CollectionVersions.Name.ROOMS);
     }
 }
@@ -0,0 +1,131 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes booking writes per room within this instance, so a burst for one room queues here instead of
+ * racing into booking_no_overlap violations and retries, while other rooms go ahead in parallel. Rooms map
+ * onto a fixed set of lock stripes; two rooms may share one, which only costs some needless waiting.
+ * <p>
+ * Take the lock before opening the transaction, so waiting writers do not hold pool connections. Inside an
+ * existing transaction the lock is kept until that transaction completes, since its writes are not visible
+ * before. A writer that waits longer than booking.room-locks.timeout fails with 503, counted as
+ * {@value #TIMEOUTS}. The database constraint still decides conflicts between instances.
+ */
+@Component
+public class RoomWriteLocks {
+    public static final String TIMEOUTS = "booking.room.locks.timeouts";
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutNanos;
+    private final Counter timeouts;
+
+    public RoomWriteLocks(MeterRegistry registry,
+                          @Value("${booking.room-locks.stripes:1024}") int stripes,
+                          @Value("${booking.room-locks.timeout:PT2S}") Duration timeout) {
+        this.stripes = new ReentrantLock[stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutNanos = timeout.toNanos();
+        this.timeouts = registry.counter(TIMEOUTS);
+    }
+
+    public <T> T withRoomLock(long roomId, Supplier<T> action) {
+        ReentrantLock lock = stripeOf(roomId);
+        acquire(lock);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
+            return action.get();
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #withRoomLock} for a writer touching several rooms. Stripes are taken in index order, so two
+     * such writers cannot deadlock; a stripe shared by two of the rooms is taken once.
+     */
+    public <T> T withRoomLocks(Collection<Long> roomIds, Supplier<T> action) {
+        ReentrantLock[] locks = roomIds.stream()
+                .mapToInt(this::stripeIndexOf)
+                .distinct()
+                .sorted()
+                .mapToObj(index -> stripes[index])
+                .toArray(ReentrantLock[]::new);
+        int held = 0;
+        try {
+            for (; held < locks.length; held++) {
+                acquire(locks[held]);
+            }
+        } catch (RuntimeException e) {
+            unlock(locks, held);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unlock(locks, locks.length);
+                }
+            });
+            return action.get();
+        }
+        try {
+            return action.get();
+        } finally {
+            unlock(locks, locks.length);
+        }
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    private ReentrantLock stripeOf(long roomId) {
+        return stripes[stripeIndexOf(roomId)];
+    }
+
+    private int stripeIndexOf(long roomId) {
+        int hash = Long.hashCode(roomId);
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    private static void unlock(ReentrantLock[] locks, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    private void acquire(ReentrantLock lock) {
+        try {
+            if (lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timeouts.increment();
+        throw new ServiceOverloadedException("Too many concurrent writes for this room, retry later");
+    }
+}
@@ -0,0 +1,47 @@
+package com.nasor.bookingapi.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code burst} tokens and refilled at {@code permitsPerSecond}. The whole
+ * state is one timestamp, the instant at which the bucket would be full again (the GCRA formulation): taking a
+ * token pushes it forward by one token's worth of time, and a token is available while it stays less than
+ * {@code burst} tokens ahead of now. Times are {@link System#nanoTime()} values.
+ */
+public final class TokenBucket {
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.capacityNanos = nanosPerToken * burst;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token and returns 0, or leaves the bucket untouched and returns the nanoseconds until a token
+     * will be available.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + nanosPerToken;
+            long ahead = next - nowNanos;
+            if (ahead > capacityNanos) {
+                return ahead - capacityNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long availableTokens(long nowNanos) {
+        long ahead = Math.max(0, fullAt.get() - nowNanos);
+        return (capacityNanos - ahead) / nanosPerToken;
+    }
+}
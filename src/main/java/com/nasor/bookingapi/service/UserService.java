@@ -1,41 +1,55 @@
 package com.nasor.bookingapi.service;
 
+import com.nasor.bookingapi.config.CacheConfig;
+import com.nasor.bookingapi.config.ReplicaRoutingDataSource;
+import com.nasor.bookingapi.dto.page.CursorPage;
 import com.nasor.bookingapi.dto.user.UserDto;
 import com.nasor.bookingapi.dto.user.UserRequestRegistration;
 import com.nasor.bookingapi.exception.ResourceNotFound;
 import com.nasor.bookingapi.mapper.UserDtoMapper;
 import com.nasor.bookingapi.model.User;
 import com.nasor.bookingapi.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
+@Timed(BookingMetrics.SERVICE_TIMER)
 public class UserService {
     private final UserRepository userRepository;
     private final UserDtoMapper userDtoMapper;
+    private final CollectionVersions collectionVersions;
 
 
-    public UserService(UserRepository userRepository, UserDtoMapper userDtoMapper) {
+    public UserService(UserRepository userRepository, UserDtoMapper userDtoMapper, CollectionVersions collectionVersions) {
         this.userRepository = userRepository;
         this.userDtoMapper = userDtoMapper;
+        this.collectionVersions = collectionVersions;
     }
 
     @Transactional(readOnly = true)
-    public List<UserDto> findAll() {
-        return userRepository
-                .findAll()
-                .stream()
-                .map(userDtoMapper)
-                .collect(Collectors.toList());
+    public CursorPage<UserDto> findAll(Long after, int limit) {
+        List<User> users = userRepository
+                .findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), Limit.of(limit + 1));
+        return CursorPage.of(users, limit, User::getId, userDtoMapper);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        return userRepository.findVersionById(id);
+    }
+
+    // A miss reads the primary: a replica's older row would otherwise be cached, right after an update evicted it
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id")
     @Transactional(readOnly = true)
     public UserDto findById(Long id) {
-        Optional<User> user = userRepository.findById(id);
+        Optional<User> user = ReplicaRoutingDataSource.readFromPrimary(() -> userRepository.findById(id));
         if (user.isEmpty()) {
             throw new ResourceNotFound("User with id " + id + " not found");
         }
@@ -56,30 +70,40 @@ public class UserService {
         newUser.setPhoneNumber(userRequest.phoneNumber());
         newUser.setAddress(userRequest.address());
 
+        collectionVersions.changed(CollectionVersions.Name.USERS);
         return userDtoMapper.apply(userRepository.save(newUser));
     }
 
+    /**
+     * @param expectedVersion version from the client's If-Match, or null to skip the precondition
+     */
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id")
     @Transactional
-    public UserDto update(Long id, UserRequestRegistration  userRequest) {
+    public UserDto update(Long id, UserRequestRegistration  userRequest, Long expectedVersion) {
         Optional<User> existingUser = userRepository.findById(id);
         if (existingUser.isEmpty()) {
             throw new ResourceNotFound("User with id " + id + " not found");
         }
         User user = existingUser.get();
+        OptimisticLocks.requireVersion(expectedVersion, user.getVersion());
         user.setFirstName(userRequest.firstName());
         user.setLastName(userRequest.lastName());
         user.setPhoneNumber(userRequest.phoneNumber());
         user.setAddress(userRequest.address());
         user.setEmail(userRequest.email());
 
-        return userDtoMapper.apply(userRepository.save(user));
+        // Bookings embed their user
+        collectionVersions.changed(CollectionVersions.Name.USERS, CollectionVersions.Name.BOOKINGS);
+        return userDtoMapper.apply(OptimisticLocks.saveAndFlush(userRepository, user));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id")
     @Transactional
     public void delete(Long id) {
         if (userRepository.findById(id).isEmpty()) {
             throw new ResourceNotFound("User with id " + id + " not found");
         }
         userRepository.deleteById(id);
+        collectionVersions.changed(CollectionVersions.Name.USERS);
     }
 }
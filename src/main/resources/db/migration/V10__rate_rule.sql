@@ -0,0 +1,22 @@
+-- V10__rate_rule.sql
+
+-- Pricing rules applied on top of room.price_per_night (see QuoteService). A night's price is the room's
+-- base price times the multiplier of every calendar rule matching the night, times the multiplier of the
+-- highest occupancy tier its room type has reached that night.
+--   calendar rule:  start_date/end_date (inclusive, either open) and/or days_of_week, a bitmask of the
+--                   night's weekday with Monday = 1, Tuesday = 2, ... Sunday = 64 (Friday + Saturday = 48)
+--   occupancy tier: min_occupancy, the fraction of the type's rooms already booked that night (0..1]
+-- room_category limits a rule to one room type; NULL applies it to every type.
+CREATE TABLE rate_rule (
+    id            BIGSERIAL PRIMARY KEY,
+    name          VARCHAR(255)  NOT NULL,
+    room_category VARCHAR(255),
+    start_date    DATE,
+    end_date      DATE,
+    days_of_week  SMALLINT CHECK (days_of_week BETWEEN 1 AND 127),
+    min_occupancy NUMERIC(5, 4) CHECK (min_occupancy > 0 AND min_occupancy <= 1),
+    multiplier    NUMERIC(8, 4) NOT NULL CHECK (multiplier > 0),
+    CONSTRAINT rate_rule_dates CHECK (start_date IS NULL OR end_date IS NULL OR start_date <= end_date),
+    CONSTRAINT rate_rule_occupancy_undated CHECK (min_occupancy IS NULL
+        OR (start_date IS NULL AND end_date IS NULL AND days_of_week IS NULL))
+);
@@ -0,0 +1,19 @@
+-- V11__booking_outbox.sql
+
+-- Booking change events written in the booking's own transaction (see BookingOutbox). The relay hands
+-- unpublished rows to the configured sink and numbers them from booking_outbox_sequence while holding an
+-- advisory lock, so sequence order is commit order and GET /api/v1/bookings/changes?since= never skips a row.
+CREATE SEQUENCE booking_outbox_sequence;
+
+CREATE TABLE booking_outbox (
+    id           BIGSERIAL PRIMARY KEY,
+    sequence     BIGINT UNIQUE,
+    booking_id   BIGINT      NOT NULL,
+    change_type  VARCHAR(16) NOT NULL,
+    payload      TEXT        NOT NULL,
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT now(),
+    published_at TIMESTAMPTZ
+);
+
+CREATE INDEX idx_booking_outbox_unpublished ON booking_outbox (id) WHERE sequence IS NULL;
+CREATE INDEX idx_booking_outbox_published_at ON booking_outbox (published_at);
@@ -0,0 +1,10 @@
+-- V12__collection_version.sql
+
+-- Change counters behind the list ETags (see CollectionVersions). A writing transaction bumps its rows just
+-- before it commits, so every instance, and every replica once it has replayed the write, issues the same tag.
+CREATE TABLE collection_version (
+    name    VARCHAR(16) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO collection_version (name) VALUES ('ROOMS'), ('USERS'), ('BOOKINGS');
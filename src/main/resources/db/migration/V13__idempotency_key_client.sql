@@ -0,0 +1,8 @@
+-- V13__idempotency_key_client.sql
+
+-- Idempotency keys are chosen by clients, so two clients may pick the same one; scope each key to the
+-- client that sent it (see ClientIds). Rows written before this migration belong to no client and are
+-- never replayed again; they are purged once booking.idempotency.retention has passed.
+ALTER TABLE idempotency_key ADD COLUMN client_id TEXT NOT NULL DEFAULT '';
+ALTER TABLE idempotency_key DROP CONSTRAINT idempotency_key_pkey;
+ALTER TABLE idempotency_key ADD PRIMARY KEY (client_id, idempotency_key);
@@ -0,0 +1,11 @@
+-- V14__collection_change.sql
+
+-- One row per writing transaction and collection it changed (see CollectionVersions). Writers only insert, so
+-- they never wait on each other; a list ETag is the collection's collection_version.version followed by its
+-- number of collection_change rows. The compaction job deletes the rows and bumps version in one transaction.
+CREATE TABLE collection_change (
+    id   BIGSERIAL PRIMARY KEY,
+    name VARCHAR(16) NOT NULL
+);
+
+CREATE INDEX idx_collection_change_name ON collection_change (name);
@@ -0,0 +1,14 @@
+-- V2__booking_no_overlap.sql
+
+-- Needed for the equality operator on room_id inside a GiST index
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Closed range, the same semantics as the overlap queries in BookingRepository
+ALTER TABLE booking
+    ADD COLUMN stay_range DATERANGE
+        GENERATED ALWAYS AS (daterange(entry_date, exit_date, '[]')) STORED;
+
+-- Rejects double bookings atomically, whatever the isolation level of the writer
+ALTER TABLE booking
+    ADD CONSTRAINT booking_no_overlap
+        EXCLUDE USING gist (room_id WITH =, stay_range WITH &&);
@@ -0,0 +1,6 @@
+-- V3__booking_id_sequence.sql
+
+-- Hibernate allocates booking ids in blocks of 50 (pooled optimizer) so inserts can be JDBC-batched.
+-- The next value is the upper bound of the first block, which must start above every existing id.
+ALTER SEQUENCE booking_id_seq INCREMENT BY 50;
+SELECT setval('booking_id_seq', COALESCE((SELECT MAX(id) FROM booking), 0) + 50, false);
@@ -0,0 +1,7 @@
+-- V4__booking_room_dates_index.sql
+
+-- Room booking listings filter on room and stay window and order by entry date.
+-- The leading room_id column also covers every lookup idx_booking_room_id served.
+CREATE INDEX idx_booking_room_dates ON booking (room_id, entry_date, exit_date);
+
+DROP INDEX idx_booking_room_id;
@@ -0,0 +1,9 @@
+-- V5__booking_window_indexes.sql
+
+-- Per-room overlap checks and room listings use idx_booking_room_dates (V4), and the GiST index behind
+-- booking_no_overlap (V2) covers (room_id, stay_range). What is left are the date-window scans that are
+-- not bound to one room: exports and the available-rooms anti-join. "exit_date >= :from" is the selective
+-- side for any window close to today, so it leads.
+CREATE INDEX idx_booking_exit_entry ON booking (exit_date, entry_date);
+
+ANALYZE booking;
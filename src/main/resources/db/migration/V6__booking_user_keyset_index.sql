@@ -0,0 +1,7 @@
+-- V6__booking_user_keyset_index.sql
+
+-- A guest's booking history is paged by id within the user, so (user_id, id) serves both the filter
+-- and the keyset order. Its leading column covers every lookup idx_booking_user_id served.
+CREATE INDEX idx_booking_user_id_id ON booking (user_id, id);
+
+DROP INDEX idx_booking_user_id;
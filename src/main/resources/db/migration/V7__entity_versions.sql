@@ -0,0 +1,6 @@
+-- V7__entity_versions.sql
+
+-- Optimistic-lock versions, also used as ETags for single resources
+ALTER TABLE booking ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE room ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE app_user ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
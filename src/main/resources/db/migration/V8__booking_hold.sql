@@ -0,0 +1,14 @@
+-- V8__booking_hold.sql
+
+-- Write-behind copy of the in-memory holds (see HoldService), read back at startup. No foreign keys:
+-- a batch flushed after its room or user was deleted must not fail, the hold simply expires.
+CREATE TABLE booking_hold (
+    id UUID PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    entry_date DATE NOT NULL,
+    exit_date DATE NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX idx_booking_hold_expires_at ON booking_hold (expires_at);
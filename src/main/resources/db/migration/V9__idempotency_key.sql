@@ -0,0 +1,15 @@
+-- V9__idempotency_key.sql
+
+-- Idempotency-Key values sent with POST /api/v1/bookings and the response each one produced (see
+-- IdempotencyService). The row is claimed and completed in the booking's own transaction, so it exists
+-- exactly when the booking does. No foreign key: a replay returns the original response even if the
+-- booking has since been changed or deleted.
+CREATE TABLE idempotency_key (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash    CHAR(64)     NOT NULL,
+    booking_id      BIGINT,
+    response        TEXT,
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_idempotency_key_created_at ON idempotency_key (created_at);
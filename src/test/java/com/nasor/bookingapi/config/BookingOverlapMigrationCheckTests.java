@@ -0,0 +1,75 @@
+package com.nasor.bookingapi.config;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookingOverlapMigrationCheckTests {
+	private final BookingOverlapMigrationCheck check = new BookingOverlapMigrationCheck();
+	private final Context context = mock(Context.class);
+	private final MigrationInfo migration = mock(MigrationInfo.class);
+	private final ResultSet overlaps = mock(ResultSet.class);
+
+	BookingOverlapMigrationCheckTests() throws SQLException {
+		Connection connection = mock(Connection.class);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(context.getMigrationInfo()).thenReturn(migration);
+		when(context.getConnection()).thenReturn(connection);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeQuery()).thenReturn(overlaps);
+	}
+
+	@Test
+	void runsOnlyBeforeTheMigrationAddingTheConstraint() {
+		when(migration.getVersion()).thenReturn(BookingOverlapMigrationCheck.NO_OVERLAP_VERSION);
+		assertTrue(check.supports(Event.BEFORE_EACH_MIGRATE, context));
+		assertFalse(check.supports(Event.AFTER_EACH_MIGRATE, context));
+
+		when(migration.getVersion()).thenReturn(MigrationVersion.fromVersion("3"));
+		assertFalse(check.supports(Event.BEFORE_EACH_MIGRATE, context));
+	}
+
+	@Test
+	void overlappingBookingsStopTheMigrationAndAreListed() throws SQLException {
+		when(overlaps.next()).thenReturn(true, false);
+		when(overlaps.getLong(1)).thenReturn(3L);
+		when(overlaps.getLong(2)).thenReturn(11L);
+		when(overlaps.getLong(5)).thenReturn(12L);
+		when(overlaps.getDate(3)).thenReturn(Date.valueOf(LocalDate.of(2025, 8, 1)));
+		when(overlaps.getDate(4)).thenReturn(Date.valueOf(LocalDate.of(2025, 8, 3)));
+		when(overlaps.getDate(6)).thenReturn(Date.valueOf(LocalDate.of(2025, 8, 3)));
+		when(overlaps.getDate(7)).thenReturn(Date.valueOf(LocalDate.of(2025, 8, 5)));
+
+		FlywayException e = assertThrows(FlywayException.class,
+				() -> check.handle(Event.BEFORE_EACH_MIGRATE, context));
+
+		assertTrue(e.getMessage().contains(
+				"room 3: booking 11 [2025-08-01, 2025-08-03] overlaps booking 12 [2025-08-03, 2025-08-05]"),
+				e.getMessage());
+	}
+
+	@Test
+	void noOverlapsLetTheMigrationRun() throws SQLException {
+		when(overlaps.next()).thenReturn(false);
+
+		assertDoesNotThrow(() -> check.handle(Event.BEFORE_EACH_MIGRATE, context));
+	}
+}
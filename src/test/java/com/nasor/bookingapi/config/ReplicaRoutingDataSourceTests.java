@@ -0,0 +1,141 @@
+package com.nasor.bookingapi.config;
+
+import com.nasor.bookingapi.config.ReplicaRoutingDataSource.ReplicaState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTests {
+	private final DataSource primary = mock(DataSource.class);
+	private final DataSource replica = mock(DataSource.class);
+	private final Connection primaryConnection = mock(Connection.class);
+	private final Connection replicaConnection = mock(Connection.class);
+	// Stand-in for replication; a missing entry makes the replica's check fail
+	private final Map<DataSource, ReplicaState> replicaStates = new HashMap<>();
+	private long primaryPosition = 1000;
+	private String client = "client-a";
+
+	private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica),
+			Duration.ofSeconds(5), Duration.ofSeconds(1), new ReplicaRoutingDataSource.ReplicationProbe() {
+				@Override
+				public ReplicaState replicaState(DataSource replica) throws SQLException {
+					ReplicaState state = replicaStates.get(replica);
+					if (state == null) {
+						throw new SQLException("replica down");
+					}
+					return state;
+				}
+
+				@Override
+				public long primaryPosition(DataSource primary) {
+					return primaryPosition;
+				}
+			}, () -> client);
+
+	ReplicaRoutingDataSourceTests() throws SQLException {
+		when(primary.getConnection()).thenReturn(primaryConnection);
+		when(replica.getConnection()).thenReturn(replicaConnection);
+	}
+
+	@AfterEach
+	void clearTransactionState() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	void readOnlyTransactionsGoToAHealthyReplicaAndWritesToThePrimary() throws SQLException {
+		replicate(Duration.ofMillis(100), primaryPosition);
+
+		assertSame(replicaConnection, connection(true));
+		assertSame(primaryConnection, connection(false));
+	}
+
+	@Test
+	void readsFallBackToThePrimaryUntilTheReplicaIsUsable() throws SQLException {
+		assertSame(primaryConnection, connection(true));
+
+		replicate(Duration.ofSeconds(6), primaryPosition);
+		assertSame(primaryConnection, connection(true));
+		assertEquals(-1, routing.replicaLagSeconds(0));
+
+		replicate(Duration.ofSeconds(1), primaryPosition);
+		assertSame(replicaConnection, connection(true));
+		assertEquals(1.0, routing.replicaLagSeconds(0));
+
+		replicaStates.remove(replica);
+		routing.checkReplicas();
+		assertSame(primaryConnection, connection(true));
+	}
+
+	@Test
+	void failedReplicaConnectionFallsBackToThePrimary() throws SQLException {
+		replicate(Duration.ZERO, primaryPosition);
+		when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+		assertSame(primaryConnection, connection(true));
+		assertEquals(-1, routing.replicaLagSeconds(0));
+	}
+
+	@Test
+	void clientReadsFromThePrimaryUntilAReplicaHasReplayedItsWrite() throws SQLException {
+		// No measured lag: everything received is replayed, but the write has not been received yet
+		replicate(Duration.ZERO, primaryPosition);
+
+		connection(false);
+		primaryPosition += 200;
+		assertSame(primaryConnection, connection(true));
+
+		client = "client-b";
+		assertSame(replicaConnection, connection(true));
+
+		client = "client-a";
+		replicate(Duration.ZERO, primaryPosition - 1);
+		assertSame(primaryConnection, connection(true));
+
+		replicate(Duration.ZERO, primaryPosition);
+		assertSame(replicaConnection, connection(true));
+
+		// The position was taken at the first read after the write, so later writes by others do not matter
+		primaryPosition += 500;
+		assertSame(replicaConnection, connection(true));
+	}
+
+	@Test
+	void readsFromThePrimaryWhenAsked() throws SQLException {
+		replicate(Duration.ZERO, primaryPosition);
+
+		assertSame(primaryConnection, ReplicaRoutingDataSource.readFromPrimary(this::readOnlyConnection));
+		assertSame(replicaConnection, connection(true));
+	}
+
+	private Connection readOnlyConnection() {
+		try {
+			return connection(true);
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void replicate(Duration lag, long replayedPosition) {
+		replicaStates.put(replica, new ReplicaState(lag, replayedPosition));
+		routing.checkReplicas();
+	}
+
+	private Connection connection(boolean readOnly) throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+		return routing.getConnection();
+	}
+}
@@ -0,0 +1,189 @@
+package com.nasor.bookingapi.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives POST /api/v1/bookings on a running instance and records throughput and latency percentiles.
+ * Run it once against the default profile and once against virtual-threads, then compare:
+ *
+ * <pre>
+ * mvn test -Dtest=BookingCreateLoadTests -Dloadtest.baseUrl=http://localhost:8080 -Dloadtest.label=platform
+ * mvn test -Dtest=BookingCreateLoadTests -Dloadtest.baseUrl=http://localhost:8080 -Dloadtest.label=virtual -Dloadtest.compareWith=platform
+ * </pre>
+ * Start the instance with booking.limits.enabled=false, or every request past the first burst is a 429.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "loadtest.baseUrl", matches = ".+")
+class BookingCreateLoadTests {
+	private static final String BASE_URL = System.getProperty("loadtest.baseUrl");
+	private static final String LABEL = System.getProperty("loadtest.label", "run");
+	private static final String COMPARE_WITH = System.getProperty("loadtest.compareWith");
+	private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 400);
+	private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("loadtest.seconds", 60));
+	private static final Path RESULTS = Path.of("target", "loadtest");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpClient client = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.executor(Executors.newFixedThreadPool(32))
+			.build();
+
+	@Test
+	void bookingCreateThroughputAndLatency() throws Exception {
+		long userId = create("/api/v1/users", objectMapper.createObjectNode()
+				.put("firstName", "Load")
+				.put("lastName", "Test")
+				.put("address", "Nowhere 1")
+				.put("email", UUID.randomUUID() + "@example.com")
+				.put("phoneNumber", "000"));
+
+		// One room per worker so the run measures the create path, not conflicts
+		long[] roomIds = new long[CONCURRENCY];
+		String prefix = "load-" + UUID.randomUUID().toString().substring(0, 8);
+		for (int i = 0; i < CONCURRENCY; i++) {
+			roomIds[i] = create("/api/v1/rooms", objectMapper.createObjectNode()
+					.put("number", prefix + "-" + i)
+					.put("roomType", "STANDARD")
+					.put("pricePerNight", 75.0));
+		}
+
+		ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+		long deadline = System.nanoTime() + DURATION.toNanos();
+		List<Future<Worker>> futures = new ArrayList<>();
+		for (int i = 0; i < CONCURRENCY; i++) {
+			Worker worker = new Worker(roomIds[i], userId, deadline);
+			futures.add(workers.submit(worker, worker));
+		}
+
+		long[] latencies = new long[0];
+		long errors = 0;
+		for (Future<Worker> future : futures) {
+			Worker worker = future.get(DURATION.toSeconds() + 60, TimeUnit.SECONDS);
+			long[] merged = Arrays.copyOf(latencies, latencies.length + worker.count);
+			System.arraycopy(worker.latencies, 0, merged, latencies.length, worker.count);
+			latencies = merged;
+			errors += worker.errors;
+		}
+		workers.shutdown();
+
+		Arrays.sort(latencies);
+		ObjectNode result = objectMapper.createObjectNode()
+				.put("label", LABEL)
+				.put("concurrency", CONCURRENCY)
+				.put("seconds", DURATION.toSeconds())
+				.put("requests", latencies.length)
+				.put("errors", errors)
+				.put("throughputPerSecond", latencies.length / (double) DURATION.toSeconds())
+				.put("p50Millis", percentile(latencies, 0.50))
+				.put("p99Millis", percentile(latencies, 0.99))
+				.put("maxMillis", percentile(latencies, 1.0));
+
+		Files.createDirectories(RESULTS);
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(RESULTS.resolve(LABEL + ".json").toFile(), result);
+		log.info("Booking create load test: {}", result);
+
+		if (COMPARE_WITH != null && Files.exists(RESULTS.resolve(COMPARE_WITH + ".json"))) {
+			var baseline = objectMapper.readTree(RESULTS.resolve(COMPARE_WITH + ".json").toFile());
+			log.info("{} vs {}: throughput {} -> {} req/s, p99 {} -> {} ms",
+					COMPARE_WITH, LABEL,
+					baseline.get("throughputPerSecond").asDouble(), result.get("throughputPerSecond").asDouble(),
+					baseline.get("p99Millis").asDouble(), result.get("p99Millis").asDouble());
+		}
+
+		assertTrue(latencies.length > 0, "No booking was created");
+	}
+
+	private long create(String path, ObjectNode body) throws IOException, InterruptedException {
+		HttpResponse<String> response = client.send(post(path, body), HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() != 201) {
+			throw new IllegalStateException("POST " + path + " returned " + response.statusCode() + ": " + response.body());
+		}
+		return objectMapper.readTree(response.body()).get("id").asLong();
+	}
+
+	private HttpRequest post(String path, ObjectNode body) throws IOException {
+		return HttpRequest.newBuilder(URI.create(BASE_URL + path))
+				.timeout(Duration.ofSeconds(30))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+				.build();
+	}
+
+	private static double percentile(long[] sortedNanos, double quantile) {
+		if (sortedNanos.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+		return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+	}
+
+	private final class Worker implements Runnable {
+		private final long roomId;
+		private final long userId;
+		private final long deadline;
+		private long[] latencies = new long[1024];
+		private int count;
+		private long errors;
+
+		Worker(long roomId, long userId, long deadline) {
+			this.roomId = roomId;
+			this.userId = userId;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public void run() {
+			LocalDate entry = LocalDate.now().plusDays(1);
+			while (System.nanoTime() < deadline) {
+				try {
+					HttpRequest request = post("/api/v1/bookings", objectMapper.createObjectNode()
+							.put("roomId", roomId)
+							.put("userId", userId)
+							.put("entryDate", entry.toString())
+							.put("exitDate", entry.plusDays(1).toString()));
+					long start = System.nanoTime();
+					HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+					long elapsed = System.nanoTime() - start;
+					if (response.statusCode() == 201) {
+						if (count == latencies.length) {
+							latencies = Arrays.copyOf(latencies, count * 2);
+						}
+						latencies[count++] = elapsed;
+					} else {
+						errors++;
+					}
+				} catch (IOException e) {
+					errors++;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				entry = entry.plusDays(3);
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.nasor.bookingapi.mapper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.nasor.bookingapi.model.Booking;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookingJsonWriterTests {
+	// Same date handling as the application's Boot-configured ObjectMapper
+	private final ObjectMapper objectMapper = JsonMapper.builder()
+			.findAndAddModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+	private final RoomDtoMapper roomDtoMapper = new RoomDtoMapper();
+	private final UserDtoMapper userDtoMapper = new UserDtoMapper();
+	private final BookingDtoMapper bookingDtoMapper = new BookingDtoMapper(userDtoMapper, roomDtoMapper);
+	private final BookingJsonWriter writer = new BookingJsonWriter(objectMapper);
+
+	@Test
+	void writesTheSameJsonAsSerializingBookingDtos() throws IOException {
+		Room deluxe = room(1L, "101", RoomType.DELUXE, 120.5);
+		Room standard = room(2L, "102", RoomType.STANDARD, null);
+		Room suite = room(3L, "103", RoomType.DELUXE, 0.1 + 0.2);
+		User alice = new User(1L, "Alice", "\"Al\" Smíth", "1 Main St\nAnytown", "alice@example.com", "555", 0L);
+		User bob = new User(2L, "Bob", "Jones", null, "bob@example.com", "556", 0L);
+		List<Booking> bookings = List.of(
+				booking(1L, deluxe, alice, LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 3)),
+				booking(2L, standard, alice, LocalDate.of(2025, 12, 30), LocalDate.of(2026, 1, 2)),
+				booking(3L, deluxe, bob, LocalDate.of(987, 1, 9), LocalDate.of(12025, 10, 31)),
+				booking(4L, suite, bob, LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 2)));
+
+		assertEquals(objectMapper.writeValueAsString(bookings.stream().map(bookingDtoMapper).toList()), write(bookings));
+	}
+
+	@Test
+	void writesPricesLikeDoubleToString() throws IOException {
+		double[] prices = {0.0, 0.05, 0.5, 1.0, 75.0, 75.25, 75.3, 99.99, 1234.56, 9_999_999.99, 1e7, 123.456, 1e-4};
+		User user = new User(1L, "Guest", "Surname", "Address", "guest@example.com", "555", 0L);
+		for (double price : prices) {
+			List<Booking> bookings = List.of(booking(1L, room(1L, "101", RoomType.STANDARD, price), user,
+					LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 2)));
+			assertEquals(objectMapper.writeValueAsString(bookings.stream().map(bookingDtoMapper).toList()), write(bookings));
+		}
+	}
+
+	@Test
+	void writesAnEmptyArray() throws IOException {
+		assertEquals("[]", write(List.of()));
+	}
+
+	private String write(List<Booking> bookings) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+			writer.writeArray(bookings, generator);
+		}
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private static Room room(Long id, String number, RoomType type, Double price) {
+		Room room = new Room();
+		room.setId(id);
+		room.setNumber(number);
+		room.setType(type);
+		room.setPricePerNight(price);
+		return room;
+	}
+
+	private static Booking booking(Long id, Room room, User user, LocalDate entry, LocalDate exit) {
+		Booking booking = new Booking();
+		booking.setId(id);
+		booking.setRoom(room);
+		booking.setUser(user);
+		booking.setEntryDate(entry);
+		booking.setExitDate(exit);
+		return booking;
+	}
+}
@@ -0,0 +1,277 @@
+package com.nasor.bookingapi.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nasor.bookingapi.model.Booking;
+import com.nasor.bookingapi.repository.projection.BookingInterval;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs EXPLAIN for the SQL Hibernate generates for each BookingRepository/RoomRepository query against a seeded
+// PostgreSQL and fails when a plan sequentially scans a table with more rows than -Dplan.test.max-seq-scan-rows
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class BookingQueryPlanTests {
+	private static final int ROOMS = 200;
+	private static final int ROWS = Integer.getInteger("plan.test.rows", 200_000);
+	private static final long MAX_SEQ_SCAN_ROWS = Long.getLong("plan.test.max-seq-scan-rows", 1_000);
+	private static final LocalDate FIRST_STAY = LocalDate.of(2100, 1, 1);
+	private static final LocalDate WINDOW_FROM = FIRST_STAY.plusDays(100);
+	private static final LocalDate WINDOW_TO = WINDOW_FROM.plusDays(7);
+	// Statements prepared on this thread while a repository call is being captured
+	private static final ThreadLocal<List<CapturedStatement>> CAPTURED = new ThreadLocal<>();
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final String prefix = "plan-" + UUID.randomUUID();
+	private long roomId;
+	private long userId;
+
+	@BeforeAll
+	void seed() {
+		userId = jdbcTemplate.queryForObject("INSERT INTO app_user (first_name, last_name, address, email, phone_number) " +
+				"VALUES ('Plan', 'Test', 'Nowhere 1', ?, '000') RETURNING id", Long.class, prefix + "@example.com");
+		jdbcTemplate.update("INSERT INTO room (number, room_category, price_per_night) " +
+				"SELECT ? || '-' || g, 'STANDARD', 75 FROM generate_series(1, ?) g", prefix, ROOMS);
+		roomId = jdbcTemplate.queryForObject("SELECT id FROM room WHERE number = ?", Long.class, prefix + "-1");
+		// Two-day stays spaced two days apart so no room gets overlapping rows
+		jdbcTemplate.update("""
+				INSERT INTO booking (room_id, user_id, entry_date, exit_date)
+				SELECT r.id, ?, ?::date + (g / ?) * 2, ?::date + (g / ?) * 2 + 1
+				FROM generate_series(0, ? - 1) g
+				JOIN room r ON r.number = ? || '-' || (g % ? + 1)
+				""", userId, FIRST_STAY, ROOMS, FIRST_STAY, ROOMS, ROWS, prefix, ROOMS);
+		jdbcTemplate.execute("ANALYZE booking");
+		jdbcTemplate.execute("ANALYZE room");
+		jdbcTemplate.execute("ANALYZE app_user");
+	}
+
+	@AfterAll
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM booking WHERE user_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM room WHERE number LIKE ?", prefix + "%");
+		jdbcTemplate.update("DELETE FROM app_user WHERE id = ?", userId);
+	}
+
+	// Each case calls the repository exactly as the services do; the SQL Hibernate prepares for it is captured
+	// together with its bind calls and replayed under EXPLAIN, so generated predicates such as
+	// "(? IS NULL OR ...)" are planned with the same values production sends
+	Stream<Arguments> queries() {
+		Sort byEntryDate = Sort.by(Sort.Direction.ASC, "entryDate", "id");
+		return Stream.of(
+				Arguments.of("findOverlappingBookings", Set.of(), (Runnable) () ->
+						bookingRepository.findOverlappingBookings(roomId, WINDOW_FROM, WINDOW_TO)),
+				Arguments.of("findOverlappingBookingsExcludingCurrent", Set.of(), (Runnable) () ->
+						bookingRepository.findOverlappingBookingsExcludingCurrent(roomId, WINDOW_FROM, WINDOW_TO, 0L)),
+				Arguments.of("findByRoomIdInWindow", Set.of(), (Runnable) () ->
+						bookingRepository.findByRoomIdInWindow(roomId, WINDOW_FROM, WINDOW_TO, byEntryDate)),
+				Arguments.of("findByRoomIdInWindow (open window)", Set.of(), (Runnable) () ->
+						bookingRepository.findByRoomIdInWindow(roomId, null, null, byEntryDate)),
+				Arguments.of("findIntervalsByRoomId", Set.of(), (Runnable) () ->
+						bookingRepository.findIntervalsByRoomId(roomId)),
+				Arguments.of("findUserBookings", Set.of(), (Runnable) () ->
+						bookingRepository.findUserBookings(userId, WINDOW_FROM, WINDOW_TO, 0L, Limit.of(101))),
+				Arguments.of("findUserBookings (open window)", Set.of(), (Runnable) () ->
+						bookingRepository.findUserBookings(userId, null, null, 0L, Limit.of(101))),
+				Arguments.of("streamForExport", Set.of(), (Runnable) () -> {
+					try (Stream<Booking> bookings = bookingRepository.streamForExport(WINDOW_FROM, WINDOW_TO)) {
+						bookings.findFirst();
+					}
+				}),
+				Arguments.of("findByIdGreaterThanOrderByIdAsc", Set.of(), (Runnable) () ->
+						bookingRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(101))),
+				// Loads every interval for the availability index, so reading all of booking is expected;
+				// anything else in its plan (a join to room or app_user) is not
+				Arguments.of("streamAllIntervals", Set.of("booking"), (Runnable) () -> {
+					try (Stream<BookingInterval> intervals = bookingRepository.streamAllIntervals()) {
+						intervals.findFirst();
+					}
+				}),
+				Arguments.of("findAvailableRooms", Set.of(), (Runnable) () ->
+						roomRepository.findAvailableRooms(WINDOW_FROM, WINDOW_TO, null, null)));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("queries")
+	void planDoesNotSequentiallyScanLargeTables(String query, Set<String> fullScans, Runnable call) throws Exception {
+		List<CapturedStatement> statements = capture(call);
+		assertFalse(statements.isEmpty(), query + " prepared no statement");
+
+		for (CapturedStatement statement : statements) {
+			String json = explain(statement);
+			JsonNode plan = objectMapper.readTree(json).get(0).get("Plan");
+			List<String> seqScans = new ArrayList<>();
+			collectLargeSeqScans(plan, fullScans, seqScans);
+
+			assertTrue(seqScans.isEmpty(), query + " sequentially scans " + seqScans + ":\n" + statement.sql() + "\n" + json);
+			if (!fullScans.isEmpty()) {
+				Set<String> relations = new TreeSet<>();
+				collectRelations(plan, relations);
+				assertEquals(fullScans, relations, query + " reads more than it scans:\n" + json);
+			}
+		}
+	}
+
+	private List<CapturedStatement> capture(Runnable call) {
+		List<CapturedStatement> statements = new ArrayList<>();
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			CAPTURED.set(statements);
+			try {
+				call.run();
+			} finally {
+				CAPTURED.remove();
+			}
+		});
+		return statements;
+	}
+
+	private String explain(CapturedStatement statement) {
+		return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+			try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + statement.sql())) {
+				for (Bind bind : statement.binds()) {
+					bind.method().invoke(explain, bind.args());
+				}
+				try (ResultSet plan = explain.executeQuery()) {
+					plan.next();
+					return plan.getString(1);
+				}
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Could not replay binds for " + statement.sql(), e);
+			}
+		});
+	}
+
+	private void collectRelations(JsonNode plan, Set<String> relations) {
+		if (plan.has("Relation Name")) {
+			relations.add(plan.get("Relation Name").asText());
+		}
+		for (JsonNode child : plan.path("Plans")) {
+			collectRelations(child, relations);
+		}
+	}
+
+	private void collectLargeSeqScans(JsonNode plan, Set<String> fullScans, List<String> seqScans) {
+		String relation = plan.path("Relation Name").asText();
+		if ("Seq Scan".equals(plan.path("Node Type").asText()) && !fullScans.contains(relation)) {
+			Long rows = jdbcTemplate.queryForObject(
+					"SELECT reltuples::bigint FROM pg_class WHERE relname = ?", Long.class, relation);
+			if (rows != null && rows > MAX_SEQ_SCAN_ROWS) {
+				seqScans.add(relation + " (" + rows + " rows)");
+			}
+		}
+		for (JsonNode child : plan.path("Plans")) {
+			collectLargeSeqScans(child, fullScans, seqScans);
+		}
+	}
+
+	private record Bind(Method method, Object[] args) {
+	}
+
+	private record CapturedStatement(String sql, List<Bind> binds) {
+	}
+
+	// Wraps the application DataSource so every statement Hibernate prepares during capture() is recorded with the
+	// setXxx calls that bind it; statements prepared outside capture() are handed out untouched
+	@TestConfiguration
+	static class StatementCaptureConfig {
+		@Bean
+		static BeanPostProcessor capturingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource
+							? proxy(DataSource.class, dataSource, StatementCaptureConfig::wrapConnection)
+							: bean;
+				}
+			};
+		}
+
+		// Connections are wrapped regardless, as the transaction acquires one before capture() starts recording
+		private static Object wrapConnection(Method method, Object result, Object[] args) {
+			if (!(result instanceof Connection connection)) {
+				return result;
+			}
+			return proxy(Connection.class, connection, (prepare, statement, sql) -> {
+				List<CapturedStatement> statements = CAPTURED.get();
+				if (statements == null || !prepare.getName().startsWith("prepare")
+						|| !(statement instanceof PreparedStatement prepared)) {
+					return statement;
+				}
+				CapturedStatement captured = new CapturedStatement((String) sql[0], new ArrayList<>());
+				statements.add(captured);
+				return proxy(PreparedStatement.class, prepared, (set, returned, bindArgs) -> {
+					if (set.getName().startsWith("set") && set.getParameterCount() >= 2
+							&& set.getParameterTypes()[0] == int.class) {
+						captured.binds().add(new Bind(set, bindArgs));
+					} else if (set.getName().equals("clearParameters")) {
+						captured.binds().clear();
+					}
+					return returned;
+				});
+			});
+		}
+
+		private interface ResultWrapper {
+			Object wrap(Method method, Object result, Object[] args);
+		}
+
+		private static <T> T proxy(Class<T> type, T target, ResultWrapper wrapper) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+				Object result;
+				try {
+					result = method.invoke(target, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+				return wrapper.wrap(method, result, args);
+			}));
+		}
+	}
+}
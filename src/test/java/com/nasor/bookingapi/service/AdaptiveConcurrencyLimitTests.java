@@ -0,0 +1,46 @@
+package com.nasor.bookingapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTests {
+	private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	void refusesCallsBeyondTheLimit() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, THRESHOLD, 0.5);
+
+		assertTrue(limit.tryAcquire());
+		assertTrue(limit.tryAcquire());
+		assertFalse(limit.tryAcquire());
+		assertEquals(2, limit.inFlight());
+	}
+
+	@Test
+	void slowCallsShrinkTheLimitAndFastCallsUnderLoadGrowIt() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 2, 9, THRESHOLD, 0.5);
+
+		limit.tryAcquire();
+		limit.release(THRESHOLD + 1);
+		assertEquals(4, limit.limit());
+		limit.tryAcquire();
+		limit.release(THRESHOLD + 1);
+		limit.tryAcquire();
+		limit.release(THRESHOLD + 1);
+		assertEquals(2, limit.limit());
+
+		limit.tryAcquire();
+		limit.release(THRESHOLD);
+		assertEquals(3, limit.limit());
+
+		// One call in flight out of three is not enough demand to grow further
+		limit.tryAcquire();
+		limit.release(THRESHOLD);
+		assertEquals(3, limit.limit());
+	}
+}
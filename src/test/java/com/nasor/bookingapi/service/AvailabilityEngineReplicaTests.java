@@ -0,0 +1,108 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.config.ReplicaRoutingDataSource;
+import com.nasor.bookingapi.config.ReplicaRoutingDataSource.ReplicaState;
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import com.nasor.bookingapi.event.BookingSnapshot;
+import com.nasor.bookingapi.repository.BookingRepository;
+import com.nasor.bookingapi.repository.projection.BookingInterval;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The index must be loaded and repaired from the primary even when read-only transactions go to a replica.
+ */
+class AvailabilityEngineReplicaTests {
+	private static final LocalDate AUG_1 = LocalDate.of(2025, 8, 1);
+
+	private final Connection primaryConnection = mock(Connection.class);
+	private final BookingRepository bookingRepository = mock(BookingRepository.class);
+	private final List<BookingInterval> primaryRows = new ArrayList<>(List.of(
+			new Interval(1L, 1L, AUG_1, AUG_1.plusDays(2)),
+			new Interval(2L, 1L, AUG_1.plusDays(10), AUG_1.plusDays(12))));
+	// The replica has replayed neither booking 2 nor anything committed later
+	private final List<BookingInterval> replicaRows = List.copyOf(primaryRows.subList(0, 1));
+
+	@Test
+	void consistencyCheckReadsThePrimaryWhileTheReplicaLags() throws SQLException {
+		DataSource primary = mock(DataSource.class);
+		DataSource replica = mock(DataSource.class);
+		when(primary.getConnection()).thenReturn(primaryConnection);
+		when(replica.getConnection()).thenReturn(mock(Connection.class));
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica),
+				Duration.ofSeconds(5), Duration.ofSeconds(1), new ReplicaRoutingDataSource.ReplicationProbe() {
+					@Override
+					public ReplicaState replicaState(DataSource dataSource) {
+						return new ReplicaState(Duration.ofSeconds(1), 0);
+					}
+
+					@Override
+					public long primaryPosition(DataSource dataSource) {
+						return 0;
+					}
+				}, () -> null);
+		routing.checkReplicas();
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+
+		when(bookingRepository.streamAllIntervals()).thenAnswer(invocation -> rows(dataSource).stream());
+		when(bookingRepository.findIntervalsByRoomId(anyLong())).thenAnswer(invocation -> rows(dataSource));
+
+		AvailabilityEngine engine = new AvailabilityEngine(bookingRepository,
+				new DataSourceTransactionManager(dataSource), false, false);
+		engine.afterSingletonsInstantiated();
+		primaryRows.add(new Interval(3L, 1L, AUG_1.plusDays(20), AUG_1.plusDays(21)));
+		engine.onBookingChanged(BookingChangedEvent.created(
+				new BookingSnapshot(3L, 1L, 7L, AUG_1.plusDays(20), AUG_1.plusDays(21))));
+
+		AvailabilityEngine.ConsistencyReport report = engine.checkConsistency(true);
+
+		assertEquals(List.of(), report.divergentRoomIds());
+		assertFalse(engine.isRoomAvailable(1L, AUG_1.plusDays(11), AUG_1.plusDays(11)));
+		assertFalse(engine.isRoomAvailable(1L, AUG_1.plusDays(20), AUG_1.plusDays(20)));
+	}
+
+	// Rows as seen by the connection the current transaction was routed to
+	private List<BookingInterval> rows(DataSource dataSource) {
+		Connection connection = ((ConnectionProxy) DataSourceUtils.getConnection(dataSource)).getTargetConnection();
+		return connection == primaryConnection ? primaryRows : replicaRows;
+	}
+
+	private record Interval(Long id, Long roomId, LocalDate entryDate, LocalDate exitDate) implements BookingInterval {
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public Long getRoomId() {
+			return roomId;
+		}
+
+		@Override
+		public LocalDate getEntryDate() {
+			return entryDate;
+		}
+
+		@Override
+		public LocalDate getExitDate() {
+			return exitDate;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import com.nasor.bookingapi.event.BookingSnapshot;
+import com.nasor.bookingapi.repository.BookingRepository;
+import com.nasor.bookingapi.repository.projection.BookingInterval;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AvailabilityEngineTests {
+	private static final LocalDate JAN_1 = LocalDate.of(2030, 1, 1);
+
+	private final BookingRepository bookingRepository = mock(BookingRepository.class);
+	private final AvailabilityEngine engine = new AvailabilityEngine(bookingRepository,
+			mock(PlatformTransactionManager.class), false, false);
+
+	@Test
+	void nextBookableDateAgreesWithTheClosedRangesBookingsAreCheckedWith() {
+		book(1L, JAN_1, JAN_1.plusDays(2));
+
+		LocalDate next = engine.nextBookableDate(7L, JAN_1);
+
+		assertEquals(JAN_1.plusDays(3), next);
+		assertFalse(engine.isRoomAvailable(7L, JAN_1.plusDays(2), JAN_1.plusDays(3)));
+		assertTrue(engine.isRoomAvailable(7L, next, next.plusDays(1)));
+	}
+
+	@Test
+	void nextBookableDateSkipsGapsTooShortForAStay() {
+		book(1L, JAN_1, JAN_1.plusDays(2));
+		book(2L, JAN_1.plusDays(4), JAN_1.plusDays(5));
+
+		LocalDate next = engine.nextBookableDate(7L, JAN_1);
+
+		assertEquals(JAN_1.plusDays(6), next);
+		assertFalse(engine.isRoomAvailable(7L, JAN_1.plusDays(3), JAN_1.plusDays(4)));
+		assertTrue(engine.isRoomAvailable(7L, next, next.plusDays(1)));
+		assertEquals(JAN_1.minusDays(5), engine.nextBookableDate(7L, JAN_1.minusDays(5)));
+	}
+
+	@Test
+	void repairLeavesARoomAloneWhileThisInstanceWritesToIt() {
+		List<BookingInterval> rows = new ArrayList<>();
+		when(bookingRepository.streamAllIntervals()).thenAnswer(invocation -> rows.stream());
+		when(bookingRepository.findIntervalsByRoomId(anyLong())).thenAnswer(invocation -> List.copyOf(rows));
+		// Written by another instance
+		rows.add(interval(1L, JAN_1, JAN_1.plusDays(2)));
+
+		BookingChangedEvent local = BookingChangedEvent.created(
+				new BookingSnapshot(2L, 7L, 3L, JAN_1.plusDays(10), JAN_1.plusDays(12)));
+		TransactionSynchronizationManager.initSynchronization();
+		List<TransactionSynchronization> synchronizations;
+		try {
+			engine.onBookingChanging(local);
+			rows.add(interval(2L, JAN_1.plusDays(10), JAN_1.plusDays(12)));
+
+			AvailabilityEngine.ConsistencyReport report = engine.checkConsistency(true);
+
+			assertEquals(List.of(7L), report.divergentRoomIds());
+			assertEquals(List.of(), report.repairedRoomIds());
+			assertTrue(engine.isRoomAvailable(7L, JAN_1, JAN_1.plusDays(2)));
+			synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		engine.onBookingChanged(local);
+		TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+
+		AvailabilityEngine.ConsistencyReport report = engine.checkConsistency(true);
+
+		assertEquals(List.of(7L), report.repairedRoomIds());
+		assertFalse(engine.isRoomAvailable(7L, JAN_1, JAN_1.plusDays(2)));
+		assertFalse(engine.isRoomAvailable(7L, JAN_1.plusDays(10), JAN_1.plusDays(12)));
+		assertEquals(List.of(), engine.checkConsistency(false).divergentRoomIds());
+	}
+
+	private static BookingInterval interval(long bookingId, LocalDate entry, LocalDate exit) {
+		BookingInterval interval = mock(BookingInterval.class);
+		when(interval.getId()).thenReturn(bookingId);
+		when(interval.getRoomId()).thenReturn(7L);
+		when(interval.getEntryDate()).thenReturn(entry);
+		when(interval.getExitDate()).thenReturn(exit);
+		return interval;
+	}
+
+	private void book(long bookingId, LocalDate entry, LocalDate exit) {
+		engine.onBookingChanged(BookingChangedEvent.created(new BookingSnapshot(bookingId, 7L, 3L, entry, exit)));
+	}
+}
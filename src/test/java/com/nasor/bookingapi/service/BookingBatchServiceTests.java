@@ -0,0 +1,159 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.dto.booking.BookingBatchItemResult;
+import com.nasor.bookingapi.dto.booking.BookingBatchItemStatus;
+import com.nasor.bookingapi.dto.booking.BookingBatchMode;
+import com.nasor.bookingapi.dto.booking.BookingBatchRequest;
+import com.nasor.bookingapi.dto.booking.BookingBatchResult;
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.exception.RoomNotAvailableException;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Needs a real PostgreSQL: the last tests rely on the booking_no_overlap exclusion constraint
+@SpringBootTest
+@Import(TestFixtures.class)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class BookingBatchServiceTests {
+	private static final long MISSING_ID = Long.MAX_VALUE;
+
+	@Autowired
+	private BookingBatchService bookingBatchService;
+
+	@Autowired
+	private TestFixtures fixtures;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final LocalDate base = LocalDate.now().plusYears(6);
+
+	@Test
+	void allOrNothingCreatesNothingWhenOneItemFails() {
+		Room room = fixtures.room("batch");
+		User user = fixtures.user("Batch");
+
+		BookingBatchResult result = bookingBatchService.create(new BookingBatchRequest(BookingBatchMode.ALL_OR_NOTHING, List.of(
+				new BookingRequestRegistration(room.getId(), user.getId(), base, base.plusDays(2)),
+				new BookingRequestRegistration(MISSING_ID, user.getId(), base, base.plusDays(2)))));
+
+		assertEquals(0, result.created());
+		assertEquals(2, result.failed());
+		assertEquals(List.of(BookingBatchItemStatus.SKIPPED, BookingBatchItemStatus.NOT_FOUND), statuses(result));
+		assertEquals(0, storedBookings(room));
+	}
+
+	@Test
+	void allOrNothingCreatesEveryItemWhenAllAreValid() {
+		Room room = fixtures.room("batch");
+		Room otherRoom = fixtures.room("batch");
+		User user = fixtures.user("Batch");
+
+		BookingBatchResult result = bookingBatchService.create(new BookingBatchRequest(BookingBatchMode.ALL_OR_NOTHING, List.of(
+				new BookingRequestRegistration(room.getId(), user.getId(), base, base.plusDays(2)),
+				new BookingRequestRegistration(room.getId(), user.getId(), base.plusDays(3), base.plusDays(5)),
+				new BookingRequestRegistration(otherRoom.getId(), user.getId(), base, base.plusDays(2)))));
+
+		assertEquals(3, result.created());
+		assertEquals(0, result.failed());
+		assertEquals(2, storedBookings(room));
+		assertEquals(1, storedBookings(otherRoom));
+	}
+
+	@Test
+	void bestEffortCreatesTheValidItemsAndReportsTheRest() {
+		Room room = fixtures.room("batch");
+		User user = fixtures.user("Batch");
+
+		BookingBatchResult result = bookingBatchService.create(new BookingBatchRequest(BookingBatchMode.BEST_EFFORT, List.of(
+				new BookingRequestRegistration(room.getId(), user.getId(), base, base.plusDays(2)),
+				new BookingRequestRegistration(room.getId(), MISSING_ID, base.plusDays(10), base.plusDays(12)),
+				new BookingRequestRegistration(room.getId(), user.getId(), base.plusDays(10), base.plusDays(10)),
+				// Starts on the day the first item ends, which the closed ranges count as an overlap
+				new BookingRequestRegistration(room.getId(), user.getId(), base.plusDays(2), base.plusDays(4)),
+				new BookingRequestRegistration(room.getId(), user.getId(), base.plusDays(3), base.plusDays(4)))));
+
+		assertEquals(2, result.created());
+		assertEquals(3, result.failed());
+		assertEquals(List.of(BookingBatchItemStatus.CREATED, BookingBatchItemStatus.NOT_FOUND,
+				BookingBatchItemStatus.INVALID_DATES, BookingBatchItemStatus.CONFLICT, BookingBatchItemStatus.CREATED),
+				statuses(result));
+		assertEquals(2, storedBookings(room));
+	}
+
+	@Test
+	void allOrNothingRejectsTheWholeBatchOnAnOverlapOnlyTheDatabaseSees() {
+		Room room = fixtures.room("batch");
+		Room otherRoom = fixtures.room("batch");
+		User user = fixtures.user("Batch");
+		bookBehindTheIndex(room, user);
+
+		BookingBatchRequest request = new BookingBatchRequest(BookingBatchMode.ALL_OR_NOTHING, List.of(
+				new BookingRequestRegistration(otherRoom.getId(), user.getId(), base, base.plusDays(2)),
+				new BookingRequestRegistration(room.getId(), user.getId(), base.plusDays(1), base.plusDays(3))));
+
+		assertThrows(RoomNotAvailableException.class, () -> bookingBatchService.create(request));
+		assertEquals(1, storedBookings(room));
+		assertEquals(0, storedBookings(otherRoom));
+	}
+
+	@Test
+	void bestEffortFailsOnlyTheItemsOverlappingWhatOnlyTheDatabaseSees() {
+		Room room = fixtures.room("batch");
+		Room otherRoom = fixtures.room("batch");
+		User user = fixtures.user("Batch");
+		bookBehindTheIndex(room, user);
+		long conflictsBefore = batchItems("conflict");
+		long createdBefore = batchItems("created");
+
+		BookingBatchResult result = bookingBatchService.create(new BookingBatchRequest(BookingBatchMode.BEST_EFFORT, List.of(
+				new BookingRequestRegistration(otherRoom.getId(), user.getId(), base, base.plusDays(2)),
+				new BookingRequestRegistration(room.getId(), user.getId(), base.plusDays(1), base.plusDays(3)),
+				new BookingRequestRegistration(room.getId(), user.getId(), base.plusDays(5), base.plusDays(6)))));
+
+		assertEquals(List.of(BookingBatchItemStatus.CREATED, BookingBatchItemStatus.CONFLICT, BookingBatchItemStatus.CREATED),
+				statuses(result));
+		assertEquals(2, storedBookings(room));
+		assertEquals(1, storedBookings(otherRoom));
+		assertEquals(conflictsBefore + 1, batchItems("conflict"));
+		assertEquals(createdBefore + 2, batchItems("created"));
+	}
+
+	// As a write from another instance would be
+	private void bookBehindTheIndex(Room room, User user) {
+		jdbcTemplate.update("INSERT INTO booking (room_id, user_id, entry_date, exit_date) VALUES (?, ?, ?, ?)",
+				room.getId(), user.getId(), base, base.plusDays(2));
+	}
+
+	private long batchItems(String outcome) {
+		Timer timer = meterRegistry.find(BookingMetrics.REQUEST_TIMER)
+				.tags("operation", "batch_create", "outcome", outcome)
+				.timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	private int storedBookings(Room room) {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM booking WHERE room_id = ?", Integer.class, room.getId());
+	}
+
+	private static List<BookingBatchItemStatus> statuses(BookingBatchResult result) {
+		return result.items().stream().map(BookingBatchItemResult::status).toList();
+	}
+}
@@ -0,0 +1,187 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.dto.room.RoomRequestRegistration;
+import com.nasor.bookingapi.exception.PreconditionFailedException;
+import com.nasor.bookingapi.exception.RoomNotAvailableException;
+import com.nasor.bookingapi.exception.ServiceOverloadedException;
+import com.nasor.bookingapi.exception.VersionConflictException;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Needs a real PostgreSQL: the exclusion constraint, and the service in front of it, are what is under test
+@SpringBootTest
+@Import(TestFixtures.class)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class BookingConcurrencyTests {
+	private static final int THREADS = 32;
+	private static final int ATTEMPTS_PER_THREAD = 20;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private TestFixtures fixtures;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Straight to the table: the service serializes writes per room, so its requests would not reach the constraint
+	@Test
+	void concurrentOverlappingInsertsNeverDoubleBookARoom() throws Exception {
+		Room room = fixtures.room("stress");
+		User user = fixtures.user("Stress");
+
+		LocalDate base = LocalDate.now().plusYears(5);
+		AtomicInteger created = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			int offset = t;
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+					LocalDate entry = base.plusDays((offset + i) % 10);
+					try {
+						jdbcTemplate.update(
+								"INSERT INTO booking (room_id, user_id, entry_date, exit_date) VALUES (?, ?, ?, ?)",
+								room.getId(), user.getId(), entry, entry.plusDays(3));
+						created.incrementAndGet();
+					} catch (DataIntegrityViolationException e) {
+						rejected.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(2, TimeUnit.MINUTES);
+		}
+		executor.shutdown();
+
+		assertEquals(0, overlappingPairs(room));
+		assertEquals(created.get(), storedBookings(room));
+		assertEquals(THREADS * ATTEMPTS_PER_THREAD, created.get() + rejected.get());
+		assertTrue(rejected.get() > 0);
+	}
+
+	@Test
+	void concurrentOverlappingRequestsNeverDoubleBookARoom() throws Exception {
+		Room room = fixtures.room("stress");
+		User user = fixtures.user("Stress");
+
+		LocalDate base = LocalDate.now().plusYears(5);
+		AtomicInteger created = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		// Writers still queued for the room's lock after booking.room-locks.timeout
+		AtomicInteger overloaded = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			int offset = t;
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+					LocalDate entry = base.plusDays((offset + i) % 10);
+					try {
+						bookingService.create(new BookingRequestRegistration(
+								room.getId(), user.getId(), entry, entry.plusDays(3)));
+						created.incrementAndGet();
+					} catch (RoomNotAvailableException e) {
+						rejected.incrementAndGet();
+					} catch (ServiceOverloadedException e) {
+						overloaded.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(2, TimeUnit.MINUTES);
+		}
+		executor.shutdown();
+
+		assertEquals(0, overlappingPairs(room));
+		assertEquals(created.get(), storedBookings(room));
+		assertEquals(THREADS * ATTEMPTS_PER_THREAD, created.get() + rejected.get() + overloaded.get());
+	}
+
+	@Test
+	void concurrentUpdatesFromTheSameVersionLetExactlyOneWin() throws Exception {
+		Room room = fixtures.room("stress");
+		Long version = room.getVersion();
+
+		AtomicInteger updated = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			double price = 100.0 + t;
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					roomService.update(room.getId(),
+							new RoomRequestRegistration(room.getNumber(), RoomType.DELUXE, price), version);
+					updated.incrementAndGet();
+				} catch (PreconditionFailedException | VersionConflictException e) {
+					rejected.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(2, TimeUnit.MINUTES);
+		}
+		executor.shutdown();
+
+		assertEquals(1, updated.get());
+		assertEquals(THREADS - 1, rejected.get());
+		assertEquals(version + 1, roomService.findVersion(room.getId()).orElseThrow());
+	}
+
+	private int overlappingPairs(Room room) {
+		return jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM booking a JOIN booking b ON a.room_id = b.room_id AND a.id < b.id " +
+						"AND a.entry_date <= b.exit_date AND a.exit_date >= b.entry_date WHERE a.room_id = ?",
+				Integer.class, room.getId());
+	}
+
+	private int storedBookings(Room room) {
+		return jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM booking WHERE room_id = ?", Integer.class, room.getId());
+	}
+}
@@ -0,0 +1,80 @@
+package com.nasor.bookingapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Seeds a few million bookings in a real PostgreSQL; override the size with -Dexport.test.rows
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class BookingExportTests {
+	private static final int ROOMS = 1000;
+	private static final int ROWS = Integer.getInteger("export.test.rows", 2_000_000);
+	private static final long MAX_HEAP_GROWTH_BYTES = 64L * 1024 * 1024;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final String prefix = "export-" + UUID.randomUUID();
+
+	@Test
+	void exportKeepsHeapFlatRegardlessOfRowCount() {
+		seed();
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long baseline = usedHeapAfterGc(memory);
+		AtomicLong peak = new AtomicLong(baseline);
+		AtomicLong seen = new AtomicLong();
+
+		long exported = bookingService.exportBookings(null, null, booking -> {
+			if (booking.user().email().startsWith(prefix) && seen.incrementAndGet() % 250_000 == 0) {
+				peak.accumulateAndGet(usedHeapAfterGc(memory), Math::max);
+			}
+		});
+
+		assertEquals(ROWS, seen.get());
+		assertTrue(exported >= ROWS);
+		assertTrue(peak.get() - baseline < MAX_HEAP_GROWTH_BYTES,
+				"Heap grew by " + (peak.get() - baseline) + " bytes while exporting " + exported + " bookings");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM booking WHERE user_id IN (SELECT id FROM app_user WHERE email LIKE ?)", prefix + "%");
+		jdbcTemplate.update("DELETE FROM room WHERE number LIKE ?", prefix + "%");
+		jdbcTemplate.update("DELETE FROM app_user WHERE email LIKE ?", prefix + "%");
+	}
+
+	private void seed() {
+		jdbcTemplate.update("INSERT INTO app_user (first_name, last_name, address, email, phone_number) " +
+				"VALUES ('Export', 'Test', 'Nowhere 1', ?, '000')", prefix + "@example.com");
+		jdbcTemplate.update("INSERT INTO room (number, room_category, price_per_night) " +
+				"SELECT ? || '-' || g, 'STANDARD', 75 FROM generate_series(1, ?) g", prefix, ROOMS);
+		// Two-day stays spaced two days apart so no room gets overlapping rows
+		jdbcTemplate.update("""
+				INSERT INTO booking (room_id, user_id, entry_date, exit_date)
+				SELECT r.id, u.id, DATE '2100-01-01' + (g / ?) * 2, DATE '2100-01-01' + (g / ?) * 2 + 1
+				FROM generate_series(0, ? - 1) g
+				JOIN room r ON r.number = ? || '-' || (g % ? + 1)
+				JOIN app_user u ON u.email = ?
+				""", ROOMS, ROOMS, ROWS, prefix, ROOMS, prefix + "@example.com");
+	}
+
+	private static long usedHeapAfterGc(MemoryMXBean memory) {
+		System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
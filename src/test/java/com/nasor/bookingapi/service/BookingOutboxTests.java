@@ -0,0 +1,85 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.dto.booking.BookingChangeDto;
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.event.BookingChangedEvent;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+@Import(TestFixtures.class)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class BookingOutboxTests {
+	@Autowired
+	private BookingOutbox bookingOutbox;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private TestFixtures fixtures;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void waitingConsumerReceivesChangesInCommitOrder() throws Exception {
+		bookingOutbox.relay();
+		long since = jdbcTemplate.queryForObject("SELECT coalesce(max(sequence), 0) FROM booking_outbox", Long.class);
+		CompletableFuture<List<BookingChangeDto>> waiting = bookingOutbox.awaitChanges(since, 10, Duration.ofSeconds(30));
+		assertFalse(waiting.isDone());
+
+		Room room = fixtures.room("outbox");
+		User user = fixtures.user("Outbox");
+
+		LocalDate entry = LocalDate.now().plusYears(5);
+		BookingDto booking = bookingService.create(new BookingRequestRegistration(room.getId(), user.getId(), entry, entry.plusDays(2)));
+		bookingService.delete(booking.id());
+		bookingOutbox.relay();
+
+		List<BookingChangeDto> changes = bookingOutbox.findChanges(since, 10).stream()
+				.filter(change -> change.bookingId().equals(booking.id()))
+				.toList();
+		assertEquals(List.of(BookingChangedEvent.ChangeType.CREATED, BookingChangedEvent.ChangeType.DELETED),
+				changes.stream().map(BookingChangeDto::type).toList());
+		assertEquals(changes.get(0).sequence() + 1, changes.get(1).sequence());
+		assertEquals(entry, changes.get(0).after().entryDate());
+
+		assertFalse(waiting.get(5, TimeUnit.SECONDS).isEmpty());
+	}
+
+	@Test
+	void waitersWithDifferentCursorsEachGetTheirOwnChanges() throws Exception {
+		bookingOutbox.relay();
+		long since = jdbcTemplate.queryForObject("SELECT coalesce(max(sequence), 0) FROM booking_outbox", Long.class);
+		CompletableFuture<List<BookingChangeDto>> first = bookingOutbox.awaitChanges(since, 1, Duration.ofSeconds(30));
+		CompletableFuture<List<BookingChangeDto>> second = bookingOutbox.awaitChanges(since + 1, 1, Duration.ofSeconds(30));
+
+		Room room = fixtures.room("outbox");
+		User user = fixtures.user("Outbox");
+
+		LocalDate entry = LocalDate.now().plusYears(5);
+		bookingService.create(new BookingRequestRegistration(room.getId(), user.getId(), entry, entry.plusDays(2)));
+		bookingService.create(new BookingRequestRegistration(room.getId(), user.getId(), entry.plusDays(5), entry.plusDays(7)));
+		bookingOutbox.relay();
+
+		assertEquals(List.of(since + 1), first.get(5, TimeUnit.SECONDS).stream().map(BookingChangeDto::sequence).toList());
+		assertEquals(List.of(since + 2), second.get(5, TimeUnit.SECONDS).stream().map(BookingChangeDto::sequence).toList());
+	}
+}
@@ -0,0 +1,108 @@
+package com.nasor.bookingapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.mapper.BookingJsonWriter;
+import com.nasor.bookingapi.model.Booking;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Guards against the N+1 on Booking.room / Booking.user coming back; needs a real PostgreSQL
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class BookingQueryCountTests {
+	private static final int BOOKINGS = 25;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private BookingJsonWriter bookingJsonWriter;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final String prefix = "n-plus-one-" + UUID.randomUUID();
+	private Long lastIdBeforeSeed;
+	private Long sharedRoomId;
+
+	@BeforeEach
+	void seed() {
+		lastIdBeforeSeed = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM booking", Long.class);
+		jdbcTemplate.update("INSERT INTO room (number, room_category, price_per_night) " +
+				"SELECT ? || '-' || g, 'STANDARD', 75 FROM generate_series(1, ?) g", prefix, BOOKINGS);
+		jdbcTemplate.update("INSERT INTO app_user (first_name, last_name, address, email, phone_number) " +
+				"SELECT 'Query', 'Count', 'Nowhere 1', ? || '-' || g || '@example.com', '000' " +
+				"FROM generate_series(1, ?) g", prefix, BOOKINGS);
+		// Every booking has its own user; half of them share one room, the rest have a room each
+		jdbcTemplate.update("""
+				INSERT INTO booking (room_id, user_id, entry_date, exit_date)
+				SELECT r.id, u.id, DATE '2100-01-01' + g * 3, DATE '2100-01-01' + g * 3 + 1
+				FROM generate_series(1, ?) g
+				JOIN room r ON r.number = ? || '-' || CASE WHEN g % 2 = 0 THEN 1 ELSE g END
+				JOIN app_user u ON u.email = ? || '-' || g || '@example.com'
+				""", BOOKINGS, prefix, prefix);
+		sharedRoomId = jdbcTemplate.queryForObject("SELECT id FROM room WHERE number = ?", Long.class, prefix + "-1");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM booking WHERE room_id IN (SELECT id FROM room WHERE number LIKE ?)", prefix + "%");
+		jdbcTemplate.update("DELETE FROM room WHERE number LIKE ?", prefix + "%");
+		jdbcTemplate.update("DELETE FROM app_user WHERE email LIKE ?", prefix + "%");
+	}
+
+	@Test
+	void listingBookingsIsOneStatementWhateverTheNumberOfRoomsAndUsers() throws IOException {
+		Statistics statistics = statistics();
+
+		List<Booking> bookings = bookingService.findAllBookingEntities(lastIdBeforeSeed, BOOKINGS).items();
+		// Written after the transaction, as the endpoint does, so a lazy room or user would show up as a statement
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+			bookingJsonWriter.writeArray(bookings, generator);
+		}
+
+		assertEquals(BOOKINGS, objectMapper.readTree(json.toByteArray()).size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void roomBookingsDoNotLoadUsersOneByOne() {
+		Statistics statistics = statistics();
+
+		List<BookingDto> bookings = bookingService.findBookingsByRoom(sharedRoomId, null, null, Sort.Direction.ASC);
+
+		assertEquals(BOOKINGS / 2 + 1, bookings.size());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	private Statistics statistics() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		return statistics;
+	}
+}
@@ -0,0 +1,81 @@
+package com.nasor.bookingapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class CollectionVersionsTests {
+	@Autowired
+	private CollectionVersions collectionVersions;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void tokenChangesWithEveryWriteAndCompaction() {
+		String before = token();
+		assertEquals(before, token());
+
+		collectionVersions.changed(CollectionVersions.Name.USERS);
+		String changed = token();
+		assertNotEquals(before, changed);
+
+		collectionVersions.compact();
+		String compacted = token();
+		assertNotEquals(changed, compacted);
+		assertNotEquals(before, compacted);
+	}
+
+	@Test
+	void writerCommitsWhileAnotherWriterIsStillCommitting() throws Exception {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		CountDownLatch secondCommitted = new CountDownLatch(1);
+		String before = token();
+
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+			collectionVersions.changed(CollectionVersions.Name.USERS);
+			// Runs after CollectionVersions has recorded the change, so the first writer's row stays uncommitted
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void beforeCommit(boolean readOnly) {
+					try {
+						assertTrue(secondCommitted.await(10, TimeUnit.SECONDS), "second writer waited for the first");
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+		}));
+
+		Thread.sleep(200);
+		transaction.executeWithoutResult(status -> collectionVersions.changed(CollectionVersions.Name.USERS));
+		secondCommitted.countDown();
+		first.get(15, TimeUnit.SECONDS);
+
+		String[] beforeParts = before.split("\\.");
+		String[] afterParts = token().split("\\.");
+		if (beforeParts[0].equals(afterParts[0])) {
+			assertEquals(Long.parseLong(beforeParts[1]) + 2, Long.parseLong(afterParts[1]));
+		}
+	}
+
+	private String token() {
+		return collectionVersions.read(CollectionVersions.Name.USERS, token -> token);
+	}
+}
@@ -0,0 +1,62 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.dto.booking.BookingDto;
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.dto.hold.HoldDto;
+import com.nasor.bookingapi.dto.hold.HoldRequest;
+import com.nasor.bookingapi.exception.ResourceNotFound;
+import com.nasor.bookingapi.exception.RoomNotAvailableException;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Import(TestFixtures.class)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class HoldServiceTests {
+	@Autowired
+	private HoldService holdService;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private TestFixtures fixtures;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void holdBlocksOthersUntilConfirmedAndIsWrittenBehind() {
+		Room room = fixtures.room("hold");
+		User user = fixtures.user("Hold");
+
+		LocalDate entry = LocalDate.now().plusYears(5);
+		HoldDto hold = holdService.create(new HoldRequest(room.getId(), user.getId(), entry, entry.plusDays(3), 5));
+
+		assertThrows(RoomNotAvailableException.class, () -> bookingService.create(
+				new BookingRequestRegistration(room.getId(), user.getId(), entry.plusDays(1), entry.plusDays(2))));
+		assertThrows(RoomNotAvailableException.class, () -> holdService.create(
+				new HoldRequest(room.getId(), user.getId(), entry.plusDays(2), entry.plusDays(4), null)));
+
+		holdService.flush();
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM booking_hold WHERE id = ?", Integer.class, hold.id()));
+
+		BookingDto booking = holdService.confirm(hold.id());
+		assertEquals(entry, booking.entryDate());
+		assertThrows(ResourceNotFound.class, () -> holdService.findById(hold.id()));
+
+		holdService.flush();
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM booking_hold WHERE id = ?", Integer.class, hold.id()));
+	}
+}
@@ -0,0 +1,147 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.dto.booking.BookingRequestRegistration;
+import com.nasor.bookingapi.exception.IdempotencyKeyReusedException;
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Import(TestFixtures.class)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class IdempotencyServiceTests {
+	private static final int THREADS = 16;
+	private static final String CLIENT = "10.0.0.1";
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private RoomWriteLocks roomWriteLocks;
+
+	@Autowired
+	private TestFixtures fixtures;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentRetriesWithOneKeyCreateOneBooking() throws Exception {
+		BookingRequestRegistration request = newRequest();
+		String key = UUID.randomUUID().toString();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<IdempotencyService.Result>> futures = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return idempotencyService.create(CLIENT, key, request);
+			}));
+		}
+		start.countDown();
+		int executed = 0;
+		Long bookingId = null;
+		for (Future<IdempotencyService.Result> future : futures) {
+			IdempotencyService.Result result = future.get(1, TimeUnit.MINUTES);
+			executed += result.replayed() ? 0 : 1;
+			if (bookingId != null) {
+				assertEquals(bookingId, result.booking().id());
+			}
+			bookingId = result.booking().id();
+		}
+		executor.shutdown();
+
+		assertEquals(1, executed);
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM booking WHERE room_id = ?", Integer.class, request.roomId()));
+	}
+
+	@Test
+	void retryReplaysAndReuseForAnotherRequestIsRejected() {
+		BookingRequestRegistration request = newRequest();
+		String key = UUID.randomUUID().toString();
+
+		IdempotencyService.Result first = idempotencyService.create(CLIENT, key, request);
+		IdempotencyService.Result retry = idempotencyService.create(CLIENT, key, request);
+		assertFalse(first.replayed());
+		assertTrue(retry.replayed());
+		assertEquals(first.booking(), retry.booking());
+
+		BookingRequestRegistration other = new BookingRequestRegistration(
+				request.roomId(), request.userId(), request.exitDate().plusDays(1), request.exitDate().plusDays(2));
+		assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.create(CLIENT, key, other));
+	}
+
+	@Test
+	void theSameKeyFromTwoClientsCreatesTwoBookings() {
+		String key = UUID.randomUUID().toString();
+
+		IdempotencyService.Result first = idempotencyService.create(CLIENT, key, newRequest());
+		IdempotencyService.Result second = idempotencyService.create("10.0.0.2", key, newRequest());
+
+		assertFalse(first.replayed());
+		assertFalse(second.replayed());
+		assertNotEquals(first.booking().id(), second.booking().id());
+	}
+
+	@Test
+	void aDifferentRequestIsRejectedWithoutWaitingForTheOneInFlight() throws Exception {
+		BookingRequestRegistration request = newRequest();
+		String key = UUID.randomUUID().toString();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		// Holds the room so the first request stays in flight, waiting for the lock
+		Future<?> blocker = executor.submit(() -> roomWriteLocks.withRoomLock(request.roomId(), () -> {
+			try {
+				return release.await(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}));
+		Thread.sleep(100);
+		Future<IdempotencyService.Result> first = executor.submit(() -> idempotencyService.create(CLIENT, key, request));
+		Thread.sleep(200);
+
+		BookingRequestRegistration other = new BookingRequestRegistration(
+				request.roomId(), request.userId(), request.exitDate().plusDays(1), request.exitDate().plusDays(2));
+		assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.create(CLIENT, key, other));
+		assertFalse(first.isDone());
+
+		release.countDown();
+		blocker.get(1, TimeUnit.MINUTES);
+		assertFalse(first.get(1, TimeUnit.MINUTES).replayed());
+		executor.shutdown();
+	}
+
+	private BookingRequestRegistration newRequest() {
+		Room room = fixtures.room("idem");
+		User user = fixtures.user("Idem");
+
+		LocalDate entry = LocalDate.now().plusYears(5);
+		return new BookingRequestRegistration(room.getId(), user.getId(), entry, entry.plusDays(3));
+	}
+}
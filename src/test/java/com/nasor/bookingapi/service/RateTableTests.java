@@ -0,0 +1,77 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.model.RateRule;
+import com.nasor.bookingapi.model.RoomType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class RateTableTests {
+	// A Friday
+	private static final LocalDate AUG_1 = LocalDate.of(2025, 8, 1);
+	private static final int AUG_1_DAY = RoomIntervalIndex.toDay(AUG_1);
+	private static final short FRIDAY_AND_SATURDAY = 16 | 32;
+
+	private final RateTable table = RateTable.of(List.of(
+			rule(null, AUG_1, AUG_1.plusDays(30), null, null, "1.25"),
+			rule(RoomType.DELUXE, null, null, FRIDAY_AND_SATURDAY, null, "1.10"),
+			rule(RoomType.STANDARD, null, null, null, "0.5", "1.2"),
+			rule(RoomType.STANDARD, null, null, null, "0.9", "1.5")),
+			AUG_1.minusDays(2), 10);
+
+	@Test
+	void seasonAndWeekdayMultipliersCombine() {
+		assertFactor("1.25", RoomType.STANDARD, AUG_1_DAY);
+		assertFactor("1.375", RoomType.DELUXE, AUG_1_DAY);
+		assertFactor("1.25", RoomType.DELUXE, AUG_1_DAY + 2);
+		assertFactor("1", RoomType.STANDARD, AUG_1_DAY - 1);
+		assertFactor("1.10", RoomType.DELUXE, AUG_1_DAY - 6);
+		// Past the precomputed horizon
+		assertFactor("1.25", RoomType.STANDARD, AUG_1_DAY + 20);
+		assertFactor("1", RoomType.STANDARD, AUG_1_DAY + 31);
+	}
+
+	@Test
+	void highestOccupancyTierReachedApplies() {
+		BigDecimal[] factors = table.nightFactors(RoomType.STANDARD, AUG_1_DAY, 3, new int[] {4, 5, 9}, 10);
+
+		assertEquals(0, new BigDecimal("1.25").compareTo(factors[0]));
+		assertEquals(0, new BigDecimal("1.5").compareTo(factors[1]));
+		assertEquals(0, new BigDecimal("1.875").compareTo(factors[2]));
+		assertFalse(table.hasOccupancyTiers(RoomType.DELUXE));
+	}
+
+	@Test
+	void quoteRoundsEachNightHalfEvenToCents() {
+		BigDecimal[] factors = table.nightFactors(RoomType.STANDARD, AUG_1_DAY, 3, new int[] {4, 5, 9}, 10);
+
+		RateTable.Quote quote = RateTable.quote(new BigDecimal("80"), factors);
+		assertEquals(List.of(new BigDecimal("100.00"), new BigDecimal("120.00"), new BigDecimal("150.00")), quote.nightly());
+		assertEquals(new BigDecimal("370.00"), quote.total());
+
+		assertEquals(new BigDecimal("0.62"), RateTable.quote(new BigDecimal("0.5"), factors).nightly().get(0));
+	}
+
+	private void assertFactor(String expected, RoomType type, int day) {
+		assertEquals(0, new BigDecimal(expected).compareTo(table.calendarFactor(type, day)),
+				type + " on " + LocalDate.ofEpochDay(day));
+	}
+
+	private static RateRule rule(RoomType type, LocalDate start, LocalDate end, Short daysOfWeek,
+								 String minOccupancy, String multiplier) {
+		RateRule rule = new RateRule();
+		rule.setName("test");
+		rule.setType(type);
+		rule.setStartDate(start);
+		rule.setEndDate(end);
+		rule.setDaysOfWeek(daysOfWeek);
+		rule.setMinOccupancy(minOccupancy == null ? null : new BigDecimal(minOccupancy));
+		rule.setMultiplier(new BigDecimal(multiplier));
+		return rule;
+	}
+}
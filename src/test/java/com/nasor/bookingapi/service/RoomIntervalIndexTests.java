@@ -0,0 +1,77 @@
+package com.nasor.bookingapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomIntervalIndexTests {
+	private static final LocalDate AUG_1 = LocalDate.of(2025, 8, 1);
+
+	@Test
+	void overlapsUseClosedRangesLikeTheRepositoryQuery() {
+		RoomIntervalIndex index = new RoomIntervalIndex();
+		index.put(1L, 10L, AUG_1, AUG_1.plusDays(5));
+
+		assertFalse(index.isAvailable(1L, AUG_1.plusDays(5), AUG_1.plusDays(7)));
+		assertFalse(index.isAvailable(1L, AUG_1.minusDays(3), AUG_1));
+		assertTrue(index.isAvailable(1L, AUG_1.plusDays(6), AUG_1.plusDays(8)));
+		assertTrue(index.isAvailable(2L, AUG_1, AUG_1.plusDays(5)));
+	}
+
+	@Test
+	void longEarlierBookingIsFoundBehindShorterLaterOnes() {
+		RoomIntervalIndex index = new RoomIntervalIndex();
+		index.put(1L, 1L, AUG_1, AUG_1.plusDays(30));
+		index.put(1L, 2L, AUG_1.plusDays(2), AUG_1.plusDays(3));
+		index.put(1L, 3L, AUG_1.plusDays(10), AUG_1.plusDays(11));
+
+		assertFalse(index.isAvailable(1L, AUG_1.plusDays(20), AUG_1.plusDays(21)));
+		assertTrue(index.isAvailable(1L, AUG_1.plusDays(20), AUG_1.plusDays(21), 1L));
+	}
+
+	@Test
+	void updatesAndRemovalsReplaceThePreviousRange() {
+		RoomIntervalIndex index = new RoomIntervalIndex();
+		index.put(1L, 10L, AUG_1, AUG_1.plusDays(5));
+		index.put(1L, 10L, AUG_1.plusDays(10), AUG_1.plusDays(12));
+
+		assertTrue(index.isAvailable(1L, AUG_1, AUG_1.plusDays(5)));
+		assertFalse(index.isAvailable(1L, AUG_1.plusDays(11), AUG_1.plusDays(11)));
+
+		index.remove(1L, 10L);
+		assertTrue(index.isAvailable(1L, AUG_1.plusDays(11), AUG_1.plusDays(11)));
+		assertTrue(index.roomIds().isEmpty());
+	}
+
+	@Test
+	void replaceRoomSortsUnorderedInput() {
+		RoomIntervalIndex loaded = new RoomIntervalIndex();
+		loaded.replaceRoom(1L, new long[]{2L, 1L},
+				new int[]{RoomIntervalIndex.toDay(AUG_1.plusDays(10)), RoomIntervalIndex.toDay(AUG_1)},
+				new int[]{RoomIntervalIndex.toDay(AUG_1.plusDays(12)), RoomIntervalIndex.toDay(AUG_1.plusDays(2))});
+
+		RoomIntervalIndex incremental = new RoomIntervalIndex();
+		incremental.put(1L, 1L, AUG_1, AUG_1.plusDays(2));
+		incremental.put(1L, 2L, AUG_1.plusDays(10), AUG_1.plusDays(12));
+
+		assertTrue(loaded.sameRoom(1L, incremental));
+		assertFalse(loaded.isAvailable(1L, AUG_1.plusDays(12), AUG_1.plusDays(13)));
+	}
+
+	@Test
+	void upcomingCountStartsAtTheGivenDay() {
+		RoomIntervalIndex index = new RoomIntervalIndex();
+		index.put(1L, 1L, AUG_1.minusDays(10), AUG_1.minusDays(5));
+		index.put(1L, 2L, AUG_1, AUG_1.plusDays(2));
+		index.put(1L, 3L, AUG_1.plusDays(4), AUG_1.plusDays(6));
+
+		int aug1 = RoomIntervalIndex.toDay(AUG_1);
+		assertEquals(2, index.countStartingOnOrAfter(1L, aug1));
+		assertEquals(1, index.countStartingOnOrAfter(1L, aug1 + 1));
+		assertEquals(0, index.countStartingOnOrAfter(2L, aug1));
+	}
+}
@@ -0,0 +1,76 @@
+package com.nasor.bookingapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomOccupancyIndexTests {
+	private static final int AUG_1 = RoomIntervalIndex.toDay(LocalDate.of(2025, 8, 1));
+
+	@Test
+	void exitDayIsNotAnOccupiedNight() {
+		RoomOccupancyIndex index = new RoomOccupancyIndex();
+		index.occupy(1L, AUG_1 + 2, AUG_1 + 5);
+
+		char[] grid = new char[7];
+		index.writeNights(1L, AUG_1, grid);
+		assertEquals("0011100", new String(grid));
+		assertFalse(index.isOccupied(1L, AUG_1 + 5));
+	}
+
+	@Test
+	void rangesSpanningSeveralWordsAreCountedAndReleased() {
+		RoomOccupancyIndex index = new RoomOccupancyIndex();
+		index.occupy(1L, AUG_1 + 60, AUG_1 + 200);
+		index.occupy(1L, AUG_1 - 10, AUG_1);
+
+		assertEquals(150, index.countNights(1L, AUG_1 - 100, AUG_1 + 300));
+		assertEquals(70, index.countNights(1L, AUG_1 + 130, AUG_1 + 300));
+
+		index.release(1L, AUG_1 + 60, AUG_1 + 200);
+		assertEquals(10, index.countNights(1L, AUG_1 - 100, AUG_1 + 300));
+		assertTrue(index.isOccupied(1L, AUG_1 - 1));
+	}
+
+	@Test
+	void replaceRoomDropsPreviousNights() {
+		RoomOccupancyIndex index = new RoomOccupancyIndex();
+		index.occupy(1L, AUG_1, AUG_1 + 3);
+		index.replaceRoom(1L, new int[]{AUG_1 + 10}, new int[]{AUG_1 + 12});
+
+		assertFalse(index.isOccupied(1L, AUG_1));
+		assertEquals(2, index.countNights(1L, AUG_1, AUG_1 + 20));
+
+		index.replaceRoom(1L, new int[0], new int[0]);
+		assertEquals(0, index.countNights(1L, AUG_1, AUG_1 + 20));
+	}
+
+	@Test
+	void nextFreeNightSkipsWholeOccupiedWords() {
+		RoomOccupancyIndex index = new RoomOccupancyIndex();
+		index.occupy(1L, AUG_1, AUG_1 + 130);
+		index.occupy(1L, AUG_1 + 131, AUG_1 + 140);
+
+		assertEquals(AUG_1 - 1, index.nextFreeNight(1L, AUG_1 - 1));
+		assertEquals(AUG_1 + 130, index.nextFreeNight(1L, AUG_1 + 3));
+		assertEquals(AUG_1 + 140, index.nextFreeNight(1L, AUG_1 + 131));
+		assertEquals(AUG_1, index.nextFreeNight(2L, AUG_1));
+	}
+
+	@Test
+	void nextFreeRunNeedsEveryNightOfTheRunFree() {
+		RoomOccupancyIndex index = new RoomOccupancyIndex();
+		index.occupy(1L, AUG_1, AUG_1 + 2);
+		index.occupy(1L, AUG_1 + 4, AUG_1 + 5);
+		index.occupy(1L, AUG_1 + 70, AUG_1 + 200);
+
+		assertEquals(AUG_1 + 2, index.nextFreeRun(1L, AUG_1, 2));
+		assertEquals(AUG_1 + 5, index.nextFreeRun(1L, AUG_1, 3));
+		assertEquals(AUG_1 + 200, index.nextFreeRun(1L, AUG_1 + 60, 20));
+		assertEquals(AUG_1, index.nextFreeRun(2L, AUG_1, 3));
+	}
+}
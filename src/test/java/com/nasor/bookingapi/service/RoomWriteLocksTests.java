@@ -0,0 +1,99 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomWriteLocksTests {
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final RoomWriteLocks locks = new RoomWriteLocks(registry, 1000, Duration.ofMillis(50));
+
+	@Test
+	void stripeCountIsRoundedUpToAPowerOfTwo() {
+		assertEquals(1024, locks.stripeCount());
+		assertEquals(1, new RoomWriteLocks(registry, 1, Duration.ZERO).stripeCount());
+		assertEquals(16, new RoomWriteLocks(registry, 16, Duration.ZERO).stripeCount());
+	}
+
+	@Test
+	void writerForABusyRoomTimesOutWhileOtherRoomsProceed() throws Exception {
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> locks.withRoomLock(1, () -> {
+			holding.countDown();
+			await(release);
+			return null;
+		}));
+		assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+		assertEquals("other room", locks.withRoomLock(2, () -> "other room"));
+		assertThrows(ServiceOverloadedException.class, () -> locks.withRoomLock(1, () -> "same room"));
+		assertEquals(1.0, registry.counter(RoomWriteLocks.TIMEOUTS).count());
+
+		release.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+		assertEquals("same room", locks.withRoomLock(1, () -> "same room"));
+	}
+
+	@Test
+	void lockTakenInsideATransactionIsHeldUntilItCompletes() throws Exception {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			locks.withRoomLock(1, () -> locks.withRoomLock(1, () -> null));
+			CompletionException waited = assertThrows(CompletionException.class,
+					() -> CompletableFuture.supplyAsync(() -> locks.withRoomLock(1, () -> null)).join());
+			assertInstanceOf(ServiceOverloadedException.class, waited.getCause());
+
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals("free", CompletableFuture.supplyAsync(() -> locks.withRoomLock(1, () -> "free")).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void multiRoomWriterHoldsEveryRoomAndReleasesThemAll() throws Exception {
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> locks.withRoomLocks(List.of(3L, 1L, 3L), () -> {
+			holding.countDown();
+			await(release);
+			return null;
+		}));
+		assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+		assertThrows(ServiceOverloadedException.class, () -> locks.withRoomLock(1, () -> null));
+		assertThrows(ServiceOverloadedException.class, () -> locks.withRoomLocks(List.of(2L, 3L), () -> null));
+		// Taken and let go again when room 3 timed out
+		assertEquals("other room",
+				CompletableFuture.supplyAsync(() -> locks.withRoomLock(2, () -> "other room")).get(5, TimeUnit.SECONDS));
+
+		release.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+		assertEquals("free", locks.withRoomLocks(List.of(1L, 2L, 3L), () -> "free"));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
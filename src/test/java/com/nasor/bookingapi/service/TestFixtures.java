@@ -0,0 +1,43 @@
+package com.nasor.bookingapi.service;
+
+import com.nasor.bookingapi.model.Room;
+import com.nasor.bookingapi.model.RoomType;
+import com.nasor.bookingapi.model.User;
+import com.nasor.bookingapi.repository.RoomRepository;
+import com.nasor.bookingapi.repository.UserRepository;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.UUID;
+
+/**
+ * Saves rooms and users with unique numbers and emails for database-backed tests; pull it in with
+ * {@code @Import(TestFixtures.class)}.
+ */
+@TestComponent
+public class TestFixtures {
+	private final RoomRepository roomRepository;
+	private final UserRepository userRepository;
+
+	public TestFixtures(RoomRepository roomRepository, UserRepository userRepository) {
+		this.roomRepository = roomRepository;
+		this.userRepository = userRepository;
+	}
+
+	public Room room(String numberPrefix) {
+		Room room = new Room();
+		room.setNumber(numberPrefix + "-" + UUID.randomUUID());
+		room.setType(RoomType.STANDARD);
+		room.setPricePerNight(75.0);
+		return roomRepository.save(room);
+	}
+
+	public User user(String firstName) {
+		User user = new User();
+		user.setFirstName(firstName);
+		user.setLastName("Test");
+		user.setAddress("Nowhere 1");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPhoneNumber("000");
+		return userRepository.save(user);
+	}
+}
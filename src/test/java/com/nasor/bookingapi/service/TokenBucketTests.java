@@ -0,0 +1,40 @@
+package com.nasor.bookingapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void burstIsAvailableAtOnceThenTokensRefillAtTheRate() {
+		long now = 42;
+		TokenBucket bucket = new TokenBucket(2, 3, now);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, bucket.tryAcquire(now));
+		}
+		assertEquals(SECOND / 2, bucket.tryAcquire(now));
+		assertEquals(0, bucket.availableTokens(now));
+
+		assertEquals(0, bucket.tryAcquire(now + SECOND / 2));
+		assertTrue(bucket.tryAcquire(now + SECOND / 2) > 0);
+	}
+
+	@Test
+	void idleBucketRefillsOnlyUpToItsBurst() {
+		TokenBucket bucket = new TokenBucket(10, 5, 0);
+		assertEquals(0, bucket.tryAcquire(0));
+
+		long later = 60 * SECOND;
+		assertEquals(5, bucket.availableTokens(later));
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, bucket.tryAcquire(later));
+		}
+		assertTrue(bucket.tryAcquire(later) > 0);
+	}
+}